@@ -0,0 +1,59 @@
+package adver.sarius.ds2tools.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import adver.sarius.ds2tools.Data;
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * JN-Abfragen ueber {@link Data} auf einem generierten Universum.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DataLookupBenchmark {
+
+	@Param({ "200", "2000" })
+	public int systems;
+
+	@Param({ "4" })
+	public double jnsPerSystem;
+
+	private JumpNode[] jumpNodes;
+	private Random random;
+
+	@Setup
+	public void setup() {
+		List<JumpNode> list = new SyntheticUniverse(42, systems, 200, jnsPerSystem).create();
+		Data.setJNs(list);
+		jumpNodes = list.toArray(new JumpNode[list.size()]);
+		random = new Random(7);
+	}
+
+	@Benchmark
+	public JumpNode getJN() {
+		return Data.getJN(1 + random.nextInt(jumpNodes.length));
+	}
+
+	@Benchmark
+	public Set<JumpNode> getOppositeJNs() {
+		return Data.getOppositeJNs(jumpNodes[random.nextInt(jumpNodes.length)]);
+	}
+
+	@Benchmark
+	public List<JumpNode> getJNsOfSystem() {
+		return Data.getJNs().get(1 + random.nextInt(systems));
+	}
+}
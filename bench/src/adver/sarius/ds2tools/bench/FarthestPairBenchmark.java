@@ -0,0 +1,70 @@
+package adver.sarius.ds2tools.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import adver.sarius.ds2tools.Data;
+import adver.sarius.ds2tools.pathfinder.DistanceFieldCache;
+import adver.sarius.ds2tools.pathfinder.DistanceSweep;
+import adver.sarius.ds2tools.pathfinder.FarthestPair;
+import adver.sarius.ds2tools.pathfinder.FarthestPairSolver;
+import adver.sarius.ds2tools.pathfinder.JumpNodeDistanceMatrix;
+import adver.sarius.ds2tools.pathfinder.JumpNodeGraph;
+
+/**
+ * Suche nach den entferntesten Sektoren in System 1 eines generierten Universums.
+ */
+@State(Scope.Thread)
+public class FarthestPairBenchmark {
+
+	@Param({ "50" })
+	public int systems;
+
+	@Param({ "100", "200" })
+	public int size;
+
+	@Param({ "4" })
+	public double jnsPerSystem;
+
+	private FarthestPairSolver solver;
+	private FarthestPairSolver.Coverage coverage;
+	private Random random;
+
+	@Setup
+	public void setup() {
+		Data.setJNs(new SyntheticUniverse(42, systems, size, jnsPerSystem).create());
+		JumpNodeDistanceMatrix matrix = JumpNodeDistanceMatrix.calculate(new JumpNodeGraph(Data.getJNs().values()));
+		solver = new FarthestPairSolver(new DistanceFieldCache(matrix), 1, size, size);
+		coverage = new FarthestPairSolver.Coverage();
+		random = new Random(7);
+	}
+
+	/**
+	 * Entferntester Sektor von einem zufaelligen Start, ohne bekannte Mindestdistanz.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public FarthestPair farthestFrom() {
+		return solver.getFarthestFrom(1 + random.nextInt(size), 1 + random.nextInt(size), 0, coverage);
+	}
+
+	/**
+	 * Kompletter Lauf ueber alle Startsektoren mit allen Prozessoren.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public FarthestPair sweep() {
+		return new DistanceSweep(solver, Runtime.getRuntime().availableProcessors()).run(1, 0);
+	}
+}
@@ -0,0 +1,131 @@
+package adver.sarius.ds2tools.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import adver.sarius.ds2tools.Data;
+import adver.sarius.ds2tools.pathfinder.JumpNodeDistanceMatrix;
+import adver.sarius.ds2tools.pathfinder.JumpNodeGraph;
+import adver.sarius.ds2tools.pathfinder.PathDistanceTupel;
+import adver.sarius.ds2tools.pathfinder.Pathfinder;
+import adver.sarius.ds2tools.pathfinder.SystemOverlay;
+import adver.sarius.ds2tools.pathfinder.SystemRouteCache;
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Einzelne Routenanfragen auf einem generierten Universum.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RouteBenchmark {
+
+	private static final int QUERIES = 1024;
+	private static final int TARGETS = 64;
+
+	@Param({ "50", "200" })
+	public int systems;
+
+	@Param({ "200" })
+	public int size;
+
+	@Param({ "4" })
+	public double jnsPerSystem;
+
+	private Pathfinder pathfinder;
+	private Pathfinder matrixPathfinder;
+	private Pathfinder cachedPathfinder;
+	private Pathfinder overlayPathfinder;
+	private Location[] starts;
+	private Location[] ends;
+	private List<Location> targets;
+	private int next;
+
+	@Setup
+	public void setup() {
+		SyntheticUniverse universe = new SyntheticUniverse(42, systems, size, jnsPerSystem);
+		Data.setJNs(universe.create());
+		JumpNodeGraph graph = new JumpNodeGraph(Data.getJNs().values());
+		pathfinder = new Pathfinder(graph);
+		matrixPathfinder = new Pathfinder(graph);
+		matrixPathfinder.setDistanceMatrix(JumpNodeDistanceMatrix.calculate(graph));
+		cachedPathfinder = new Pathfinder(graph);
+		cachedPathfinder.setRouteCache(new SystemRouteCache(graph, QUERIES));
+		overlayPathfinder = new Pathfinder(graph);
+		overlayPathfinder.setSystemOverlay(new SystemOverlay(graph));
+
+		Random random = new Random(7);
+		starts = new Location[QUERIES];
+		ends = new Location[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			starts[i] = universe.randomLocation(random);
+			ends[i] = universe.randomLocation(random);
+		}
+		targets = new ArrayList<Location>(TARGETS);
+		for (int i = 0; i < TARGETS; i++) {
+			targets.add(universe.randomLocation(random));
+		}
+	}
+
+	private int nextQuery() {
+		next = (next + 1) & (QUERIES - 1);
+		return next;
+	}
+
+	@Benchmark
+	public PathDistanceTupel shortestPath() {
+		int i = nextQuery();
+		return pathfinder.findShortestPath(starts[i], ends[i], null);
+	}
+
+	@Benchmark
+	public PathDistanceTupel shortestPathMatrix() {
+		int i = nextQuery();
+		return matrixPathfinder.findShortestPath(starts[i], ends[i], null);
+	}
+
+	@Benchmark
+	public PathDistanceTupel shortestPathOverlay() {
+		int i = nextQuery();
+		return overlayPathfinder.findShortestPath(starts[i], ends[i], null);
+	}
+
+	@Benchmark
+	public PathDistanceTupel shortestPathAvoiding() {
+		int i = nextQuery();
+		return pathfinder.findShortestPath(starts[i], ends[i], Collections.singleton(1 + i % 10));
+	}
+
+	/**
+	 * Nach der ersten Runde liegen alle Systempaare im Cache.
+	 */
+	@Benchmark
+	public PathDistanceTupel shortestPathAvoidingCached() {
+		int i = nextQuery();
+		return cachedPathfinder.findShortestPath(starts[i], ends[i], Collections.singleton(1 + i % 10));
+	}
+
+	@Benchmark
+	public List<PathDistanceTupel> eightShortestPaths() {
+		int i = nextQuery();
+		pathfinder.setMaxResults(8);
+		return pathfinder.findPaths(starts[i], ends[i], null);
+	}
+
+	@Benchmark
+	public List<PathDistanceTupel> oneToMany() {
+		return pathfinder.findShortestPaths(starts[nextQuery()], targets, null);
+	}
+}
@@ -0,0 +1,79 @@
+package adver.sarius.ds2tools.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import adver.sarius.ds2tools.datacollector.SQLWriter;
+import adver.sarius.ds2tools.datacollector.SchiffInfoProcessor;
+import net.driftingsouls.ds2.server.ships.ShipBaubar;
+import net.driftingsouls.ds2.server.ships.ShipType;
+
+/**
+ * Schreiben der SQL-Dateien fuer {@code rows} Schiffe, die reihum aus dem {@link SchiffInfoCorpus}
+ * erzeugt werden.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SQLWriterBenchmark {
+
+	@Param({ "500" })
+	public int rows;
+
+	@Param({ "1", "100" })
+	public int batchSize;
+
+	private File directory;
+	private SQLWriter writer;
+	private List<ShipType> ships;
+	private List<ShipBaubar> baubar;
+
+	@Setup
+	public void setup() throws IOException {
+		SchiffInfoCorpus corpus = new SchiffInfoCorpus();
+		ships = new ArrayList<ShipType>(rows);
+		baubar = new ArrayList<ShipBaubar>(rows);
+		for (int id = 1; id <= rows; id++) {
+			SchiffInfoProcessor processor = corpus.parse(id % corpus.size(), id);
+			ships.add(processor.getShipType());
+			baubar.add(processor.getShipBaubar());
+		}
+		directory = Files.createTempDirectory("ds2tools-bench").toFile();
+		writer = new SQLWriter(directory.getPath(), batchSize);
+	}
+
+	@TearDown
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public void writeShipTypes() {
+		writer.writeList(ships);
+	}
+
+	@Benchmark
+	public void writeShipBaubar() {
+		writer.writeList(baubar);
+	}
+}
@@ -0,0 +1,60 @@
+package adver.sarius.ds2tools.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import adver.sarius.ds2tools.datacollector.SchiffInfoProcessor;
+
+/**
+ * Durchsatz beim Einlesen der schiffinfo-Seiten aus dem {@link SchiffInfoCorpus}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchiffInfoBenchmark {
+
+	private SchiffInfoCorpus corpus;
+	private SchiffInfoProcessor processor;
+	private String description;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		corpus = new SchiffInfoCorpus();
+		processor = new SchiffInfoProcessor();
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < corpus.size(); i++) {
+			String page = corpus.getPage(i);
+			int start = page.indexOf("<h3>Beschreibung</h3>");
+			if (start >= 0) {
+				builder.append(page, start + "<h3>Beschreibung</h3>".length(), page.indexOf("</td>", start)).append("<br>");
+			}
+		}
+		description = builder.toString().replace("\n", " ").replace("\t", "");
+	}
+
+	/**
+	 * Eine Seite pro Aufruf, reihum durch den Corpus.
+	 */
+	@Benchmark
+	public void readPage(Blackhole blackhole) throws IOException {
+		next = (next + 1) % corpus.size();
+		SchiffInfoProcessor result = corpus.parse(next, corpus.getId(next));
+		blackhole.consume(result.getShipType());
+		blackhole.consume(result.getShipBaubar());
+	}
+
+	@Benchmark
+	public String convertHtmlToBBCode() {
+		return processor.convertHtmlToBBCode(description);
+	}
+}
@@ -0,0 +1,68 @@
+package adver.sarius.ds2tools.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import adver.sarius.ds2tools.datacollector.SchiffInfoProcessor;
+
+/**
+ * Gespeicherte schiffinfo-Seiten fuer die Benchmarks. Das Verzeichnis kann ueber die System-Property
+ * {@code bench.schiffinfo} gesetzt werden, ansonsten werden die Seiten aus bench/resources genutzt.
+ * Wie beim Import werden nur Dateien der Form {@code <id>.html} gelesen.
+ */
+public class SchiffInfoCorpus {
+
+	private final int[] ids;
+	private final String[] pages;
+
+	public SchiffInfoCorpus() throws IOException {
+		this(new File(System.getProperty("bench.schiffinfo", "bench/resources/schiffinfo")));
+	}
+
+	public SchiffInfoCorpus(File directory) throws IOException {
+		File[] files = directory.listFiles((dir, name) -> name.matches("\\d+\\.html"));
+		if (files == null || files.length == 0) {
+			throw new IOException("No schiffinfo pages in " + directory.getAbsolutePath());
+		}
+		Arrays.sort(files);
+		ids = new int[files.length];
+		pages = new String[files.length];
+		for (int i = 0; i < files.length; i++) {
+			String name = files[i].getName();
+			ids[i] = Integer.parseInt(name.substring(0, name.length() - ".html".length()));
+			pages[i] = new String(Files.readAllBytes(files[i].toPath()), StandardCharsets.UTF_8);
+		}
+	}
+
+	public int size() {
+		return pages.length;
+	}
+
+	public int getId(int index) {
+		return ids[index];
+	}
+
+	public String getPage(int index) {
+		return pages[index];
+	}
+
+	/**
+	 * Liest die Seite mit einem neuen Processor ein.
+	 *
+	 * @param index Index der Seite.
+	 * @param shipId Id, die der ShipType bekommen soll.
+	 * @return Der Processor mit dem gelesenen ShipType und ShipBaubar.
+	 */
+	public SchiffInfoProcessor parse(int index, int shipId) throws IOException {
+		SchiffInfoProcessor processor = new SchiffInfoProcessor();
+		try (BufferedReader reader = new BufferedReader(new StringReader(pages[index]))) {
+			processor.readPage(reader, shipId);
+		}
+		return processor;
+	}
+}
@@ -0,0 +1,84 @@
+package adver.sarius.ds2tools.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import adver.sarius.ds2tools.extended.JumpNodeExt;
+import net.driftingsouls.ds2.server.Location;
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * Erzeugt ein zufaelliges Universum aus JNs, ohne dass eine DB gebraucht wird. Bei gleichem Seed
+ * entstehen immer die gleichen JNs.
+ * <p>
+ * Alle Systeme sind quadratisch mit gleicher Groesse. Zuerst wird jedes System mit einem zufaelligen
+ * vorherigen System verbunden, sodass alles erreichbar ist. Danach werden weitere zufaellige
+ * Verbindungen erzeugt, bis im Schnitt {@code jnsPerSystem} JNs pro System existieren. Ein Teil der
+ * Verbindungen ist nur in eine Richtung nutzbar.
+ */
+public class SyntheticUniverse {
+
+	/** Anteil der Verbindungen ohne Rueckweg. **/
+	private static final double ONE_WAY_SHARE = 0.1;
+
+	private final long seed;
+	private final int systems;
+	private final int size;
+	private final double jnsPerSystem;
+
+	/**
+	 * @param seed Seed fuer den Zufallsgenerator.
+	 * @param systems Anzahl der Systeme, Ids von 1 bis {@code systems}.
+	 * @param size Breite und Hoehe jedes Systems.
+	 * @param jnsPerSystem Durchschnittliche Anzahl an JNs pro System.
+	 */
+	public SyntheticUniverse(long seed, int systems, int size, double jnsPerSystem) {
+		this.seed = seed;
+		this.systems = systems;
+		this.size = size;
+		this.jnsPerSystem = jnsPerSystem;
+	}
+
+	public int getSystems() {
+		return systems;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return Alle JNs des Universums mit fortlaufenden Ids ab 1.
+	 */
+	public List<JumpNode> create() {
+		Random random = new Random(seed);
+		int total = (int) Math.round(systems * jnsPerSystem);
+		List<JumpNode> jumpNodes = new ArrayList<JumpNode>(total);
+		for (int system = 2; system <= systems; system++) {
+			connect(random, jumpNodes, system, 1 + random.nextInt(system - 1), true);
+		}
+		while (jumpNodes.size() < total) {
+			int a = 1 + random.nextInt(systems);
+			int b = 1 + random.nextInt(systems);
+			connect(random, jumpNodes, a, b, random.nextDouble() >= ONE_WAY_SHARE);
+		}
+		return jumpNodes;
+	}
+
+	/**
+	 * @return Eine zufaellige Position im Universum.
+	 */
+	public Location randomLocation(Random random) {
+		return new Location(1 + random.nextInt(systems), 1 + random.nextInt(size), 1 + random.nextInt(size));
+	}
+
+	private void connect(Random random, List<JumpNode> jumpNodes, int systemA, int systemB, boolean bothWays) {
+		Location a = new Location(systemA, 1 + random.nextInt(size), 1 + random.nextInt(size));
+		Location b = new Location(systemB, 1 + random.nextInt(size), 1 + random.nextInt(size));
+		jumpNodes.add(new JumpNodeExt(jumpNodes.size() + 1, a, b, systemA + " - " + systemB));
+		if (bothWays) {
+			jumpNodes.add(new JumpNodeExt(jumpNodes.size() + 1, b, a, systemB + " - " + systemA));
+		}
+	}
+}
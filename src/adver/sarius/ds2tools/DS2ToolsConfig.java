@@ -44,6 +44,15 @@ public class DS2ToolsConfig {
 			return Integer.parseInt(properties.getProperty("pathfinder.distance.currentmax", "0"));
 		}
 
+		public int getDistanceSystem() {
+			return Integer.parseInt(properties.getProperty("pathfinder.distance.system", "605"));
+		}
+
+		public int getDistanceThreads() {
+			return Integer.parseInt(properties.getProperty("pathfinder.distance.threads",
+					String.valueOf(Runtime.getRuntime().availableProcessors())));
+		}
+
 		public boolean isPathEnabled() {
 			return Boolean.parseBoolean(properties.getProperty("pathfinder.path.enabled", "false"));
 		}
@@ -83,6 +92,51 @@ public class DS2ToolsConfig {
 		public int getMaxResults() {
 			return Integer.parseInt(properties.getProperty("pathfinder.path.maxresults", "5"));
 		}
+
+		public boolean isMatrixEnabled() {
+			return Boolean.parseBoolean(properties.getProperty("pathfinder.matrix.enabled", "false"));
+		}
+
+		public String getMatrixFile() {
+			return properties.getProperty("pathfinder.matrix.file", "jn_matrix.bin");
+		}
+
+		public boolean isOverlayEnabled() {
+			return Boolean.parseBoolean(properties.getProperty("pathfinder.overlay.enabled", "false"));
+		}
+
+		public String getSnapshotFile() {
+			return properties.getProperty("pathfinder.snapshot.file");
+		}
+
+		public boolean isServerEnabled() {
+			return Boolean.parseBoolean(properties.getProperty("pathfinder.server.enabled", "false"));
+		}
+
+		public int getServerPort() {
+			return Integer.parseInt(properties.getProperty("pathfinder.server.port", "8080"));
+		}
+
+		public int getServerThreads() {
+			return Integer.parseInt(properties.getProperty("pathfinder.server.threads",
+					String.valueOf(Runtime.getRuntime().availableProcessors())));
+		}
+
+		public int getServerCacheSize() {
+			return Integer.parseInt(properties.getProperty("pathfinder.server.cache", "10000"));
+		}
+
+		public int getServerMaxResults() {
+			return Integer.parseInt(properties.getProperty("pathfinder.server.maxresults", "10"));
+		}
+
+		public int getServerSystemCacheSize() {
+			return Integer.parseInt(properties.getProperty("pathfinder.server.systemcache", "1000"));
+		}
+
+		public int getServerReload() {
+			return Integer.parseInt(properties.getProperty("pathfinder.server.reload", "0"));
+		}
 	}
 
 	class Datacollector {
@@ -93,9 +147,41 @@ public class DS2ToolsConfig {
 		public String getSchiffinfoDirectory() {
 			return properties.getProperty("datacollector.schiffinfo.directory");
 		}
+
+		public int getSchiffInfoThreads() {
+			return Integer.parseInt(properties.getProperty("datacollector.schiffinfo.threads",
+					String.valueOf(Runtime.getRuntime().availableProcessors())));
+		}
+
+		public int getSchiffInfoWindow() {
+			return Integer.parseInt(properties.getProperty("datacollector.schiffinfo.window", "256"));
+		}
+
+		public boolean isSchiffInfoIncremental() {
+			return Boolean.parseBoolean(properties.getProperty("datacollector.schiffinfo.incremental", "false"));
+		}
+
+		public String getSchiffInfoManifestFile() {
+			return properties.getProperty("datacollector.schiffinfo.manifest");
+		}
+
+		public String getSchiffInfoNamesFile() {
+			return properties.getProperty("datacollector.schiffinfo.names");
+		}
 		
 		public String getWriteDirectory() {
 			return properties.getProperty("datacollector.write.directory");
 		}
+
+		public int getWriteBatchSize() {
+			return Integer.parseInt(properties.getProperty("datacollector.write.batch", "100"));
+		}
+
+		/**
+		 * @return one of sql, tsv, csv or database.
+		 */
+		public String getWriteFormat() {
+			return properties.getProperty("datacollector.write.format", "sql").trim().toLowerCase();
+		}
 	}
 }
\ No newline at end of file
@@ -1,37 +1,152 @@
 package adver.sarius.ds2tools;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hibernate.Session;
 
+import net.driftingsouls.ds2.server.config.StarSystem;
 import net.driftingsouls.ds2.server.entities.JumpNode;
 
 public class Data {
 
-	private static Map<Integer, List<JumpNode>> jns;
+	/** Aktueller Stand der JNs. Wird als Ganzes ersetzt, nie veraendert. **/
+	private static final AtomicReference<Universe> universe = new AtomicReference<Universe>();
 
+	/** Snapshot-Datei fuer die JNs oder null, wenn immer aus der DB gelesen werden soll. **/
+	private static File snapshotFile;
+
+	private static Map<Integer, StarSystem> systems = new HashMap<Integer, StarSystem>();
+
+	/**
+	 * Setzt die Datei, aus der die JNs ohne DB geladen werden. Fehlt die Datei, wird sie beim ersten
+	 * Laden aus der DB geschrieben.
+	 * @param file Snapshot-Datei oder null.
+	 */
+	public static synchronized void setSnapshotFile(File file) {
+		snapshotFile = file;
+	}
+
+	/**
+	 * @return Der aktuelle Stand der JNs. Wird beim ersten Aufruf aus dem Snapshot oder der DB geladen.
+	 */
+	public static Universe getUniverse() {
+		Universe current = universe.get();
+		if (current != null) {
+			return current;
+		}
+		synchronized (Data.class) {
+			if (universe.get() == null) {
+				JumpNodeTable table = snapshotFile != null ? JumpNodeTable.loadOrQuery(snapshotFile)
+						: JumpNodeTable.loadFromDB();
+				universe.set(new Universe(1, table));
+			}
+			return universe.get();
+		}
+	}
+
+	/**
+	 * Liest die JNs neu aus der DB. Nur wenn sie sich geaendert haben, wird ein neuer Stand mit
+	 * hoeherer Version gesetzt und der Snapshot neu geschrieben. Laufende Suchen rechnen mit dem
+	 * alten Stand zu Ende.
+	 *
+	 * @return true, wenn sich die JNs geaendert haben.
+	 */
+	public static synchronized boolean reloadJNs() {
+		JumpNodeTable table = JumpNodeTable.loadFromDB();
+		Universe current = universe.get();
+		if (current != null && current.getTable().hasSameContent(table)) {
+			return false;
+		}
+		universe.set(new Universe(current != null ? current.getVersion() + 1 : 1, table));
+		if (snapshotFile != null) {
+			try {
+				table.save(snapshotFile);
+			} catch (IOException ex) {
+				System.out.println("Failed to write JN snapshot: " + ex);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Prueft regelmaessig in einem eigenen Thread, ob sich die JNs in der DB geaendert haben.
+	 *
+	 * @param seconds Abstand zwischen zwei Pruefungen.
+	 * @return Der Executor, um das Pruefen mit {@code shutdown()} zu beenden.
+	 */
+	public static ScheduledExecutorService startAutoReload(long seconds) {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "jn-reload");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(() -> {
+			try {
+				if (reloadJNs()) {
+					System.out.println("Reloaded JNs, version " + universe.get().getVersion());
+				}
+			} catch (RuntimeException ex) {
+				System.out.println("Failed to reload JNs: " + ex);
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+		return executor;
+	}
+
+	/**
+	 * @return Alle nicht versteckten JNs des aktuellen Stands als Tabelle.
+	 */
+	public static JumpNodeTable getJNTable() {
+		return getUniverse().getTable();
+	}
+
+	/**
+	 * @return Index ueber alle nicht versteckten JNs des aktuellen Stands.
+	 */
+	public static JumpNodeIndex getJNIndex() {
+		return getUniverse().getIndex();
+	}
+
+	/**
+	 * Ersetzt die JNs, ohne die DB zu nutzen. Zum Beispiel fuer Benchmarks mit generierten JNs.
+	 * @param jumpNodes Alle JNs.
+	 */
+	public static synchronized void setJNs(Collection<JumpNode> jumpNodes) {
+		Universe current = universe.get();
+		universe.set(new Universe(current != null ? current.getVersion() + 1 : 1, JumpNodeTable.of(jumpNodes),
+				jumpNodes));
+	}
+
+	/**
+	 * @return Alle JNs nach System gruppiert. Nicht veraenderbar.
+	 */
 	public static Map<Integer, List<JumpNode>> getJNs() {
-		if (jns == null) {
+		return getJNIndex().getBySystem();
+	}
+	
+	/**
+	 * Gibt das System mit der entsprechenden Id zurueck.
+	 * @param id Id des Systems.
+	 * @return Zur Id gehoeriges System oder null.
+	 */
+	public static synchronized StarSystem getStarSystem(int id) {
+		StarSystem system = systems.get(id);
+		if (system == null) {
 			Session db = HibernateUtils.createSession();
-			List<JumpNode> jumpNodes = (List<JumpNode>) db.createQuery("FROM JumpNode WHERE hidden=false").list();
+			system = (StarSystem) db.get(StarSystem.class, id);
 			db.close();
-			jns = new HashMap<Integer, List<JumpNode>>();
-			for (JumpNode jn : jumpNodes) {
-				List<JumpNode> list = jns.get(jn.getSystem());
-				if (list == null) {
-					list = new ArrayList<JumpNode>();
-					jns.put(jn.getSystem(), list);
-				}
-				list.add(jn);
-			}
+			systems.put(id, system);
 		}
-		return jns;
+		return system;
 	}
 	
 	/**
@@ -40,9 +155,7 @@ public class Data {
 	 * @return Zur Id gehoeriger JN.
 	 */
 	public static JumpNode getJN(int id) {
-		Optional<JumpNode> result = getJNs().values().stream().flatMap(list -> list.stream()
-				.filter(j -> j.getId() == id)).findAny();
-		return result.orElse(null); // TODO: some default
+		return getJNIndex().get(id); // TODO: some default
 	}
 
 	/**
@@ -50,12 +163,9 @@ public class Data {
 	 * In der Regel gibt es genau 1 Gegenstueck.
 	 * 
 	 * @param jn Ziel-JN zu dem andere JNs ermittelt werden sollen.
-	 * @return Alle JNs die zum JN fuehren.
+	 * @return Alle JNs die zum JN fuehren. Nicht veraenderbar.
 	 */
 	public static Set<JumpNode> getOppositeJNs(JumpNode jn) {
-		return getJNs().values().stream().flatMap(list -> list.stream()
-				.filter(j -> j.getSystemOut() == jn.getSystem()
-					&& j.getXOut() == jn.getX()
-					&& j.getYOut() == jn.getY())).collect(Collectors.toSet());
+		return getJNIndex().getArrivingAt(jn.getSystem(), jn.getX(), jn.getY());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package adver.sarius.ds2tools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * Unveraenderlicher Index ueber alle JNs, der einmal beim Laden aufgebaut wird.
+ * Alle Abfragen sind Array- oder Hash-Zugriffe statt einer Suche ueber alle JNs.
+ */
+public class JumpNodeIndex {
+
+	private static final JumpNode[] NO_JNS = new JumpNode[0];
+
+	/** JNs nach Id, entweder dicht ab {@link #minId} oder ueber {@link #byIdSparse}. **/
+	private final JumpNode[] byIdDense;
+	private final Map<Integer, JumpNode> byIdSparse;
+	private final int minId;
+
+	/** JNs eines Systems. **/
+	private final Map<Integer, JumpNode[]> bySystem;
+
+	/** Die gleichen Listen wie {@link #bySystem}, fuer {@link Data#getJNs()}. **/
+	private final Map<Integer, List<JumpNode>> bySystemList;
+
+	/** JNs, die an einer Position (System, x, y) landen. **/
+	private final Map<Long, Set<JumpNode>> byTarget;
+
+	public JumpNodeIndex(Collection<JumpNode> jumpNodes) {
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		Map<Integer, List<JumpNode>> systems = new HashMap<Integer, List<JumpNode>>();
+		Map<Long, Set<JumpNode>> targets = new HashMap<Long, Set<JumpNode>>();
+		for (JumpNode jn : jumpNodes) {
+			min = Math.min(min, jn.getId());
+			max = Math.max(max, jn.getId());
+			systems.computeIfAbsent(jn.getSystem(), k -> new ArrayList<JumpNode>()).add(jn);
+			targets.computeIfAbsent(key(jn.getSystemOut(), jn.getXOut(), jn.getYOut()), k -> new HashSet<JumpNode>(2))
+					.add(jn);
+		}
+
+		// Die Ids sind in der Regel fortlaufend, dann reicht ein Array.
+		if (!jumpNodes.isEmpty() && (long) max - min < 4L * jumpNodes.size()) {
+			minId = min;
+			byIdDense = new JumpNode[max - min + 1];
+			byIdSparse = null;
+			for (JumpNode jn : jumpNodes) {
+				byIdDense[jn.getId() - min] = jn;
+			}
+		} else {
+			minId = 0;
+			byIdDense = null;
+			byIdSparse = new HashMap<Integer, JumpNode>(jumpNodes.size() * 2);
+			for (JumpNode jn : jumpNodes) {
+				byIdSparse.put(jn.getId(), jn);
+			}
+		}
+
+		bySystem = new HashMap<Integer, JumpNode[]>(systems.size() * 2);
+		bySystemList = new HashMap<Integer, List<JumpNode>>(systems.size() * 2);
+		for (Map.Entry<Integer, List<JumpNode>> entry : systems.entrySet()) {
+			bySystem.put(entry.getKey(), entry.getValue().toArray(NO_JNS));
+			bySystemList.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+		}
+		byTarget = new HashMap<Long, Set<JumpNode>>(targets.size() * 2);
+		for (Map.Entry<Long, Set<JumpNode>> entry : targets.entrySet()) {
+			byTarget.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+		}
+	}
+
+	private static long key(int system, int x, int y) {
+		return ((long) system << 32) | ((long) (x & 0xffff) << 16) | (y & 0xffff);
+	}
+
+	/**
+	 * @param id Interne Id des JNs.
+	 * @return Zur Id gehoeriger JN oder null.
+	 */
+	public JumpNode get(int id) {
+		if (byIdDense != null) {
+			int index = id - minId;
+			return index >= 0 && index < byIdDense.length ? byIdDense[index] : null;
+		}
+		return byIdSparse.get(id);
+	}
+
+	/**
+	 * @param system Id des Systems.
+	 * @return Alle JNs im System. Das Array darf nicht veraendert werden.
+	 */
+	public JumpNode[] getInSystem(int system) {
+		JumpNode[] result = bySystem.get(system);
+		return result != null ? result : NO_JNS;
+	}
+
+	/**
+	 * @return Alle JNs nach System gruppiert. Nicht veraenderbar.
+	 */
+	public Map<Integer, List<JumpNode>> getBySystem() {
+		return Collections.unmodifiableMap(bySystemList);
+	}
+
+	/**
+	 * @return Alle JNs, die an der Position landen. Nicht veraenderbar.
+	 */
+	public Set<JumpNode> getArrivingAt(int system, int x, int y) {
+		Set<JumpNode> result = byTarget.get(key(system, x, y));
+		return result != null ? result : Collections.<JumpNode> emptySet();
+	}
+}
@@ -0,0 +1,257 @@
+package adver.sarius.ds2tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import adver.sarius.ds2tools.extended.JumpNodeExt;
+import net.driftingsouls.ds2.server.Location;
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * Alle nicht versteckten JNs als einfache int-Arrays, nach Id sortiert. Enthaelt nur die Spalten,
+ * die fuer die Wegsuche gebraucht werden, also keine Namen.
+ * <p>
+ * Kann direkt per Projektion aus der DB gelesen werden, ohne Entities anzulegen, oder aus einer
+ * Snapshot-Datei, dann wird keine DB-Verbindung gebraucht.
+ */
+public class JumpNodeTable {
+
+	/** Kennung am Anfang der Snapshot-Datei. **/
+	private static final int FILE_MAGIC = 0x44534a4e;
+	private static final int FILE_VERSION = 1;
+	/** Magic, Version und Anzahl der JNs. **/
+	private static final int HEADER_SIZE = 4 + 4 + 4;
+	/** Anzahl der int-Spalten. **/
+	private static final int COLUMNS = 7;
+
+	private final int[] ids;
+	private final int[] system;
+	private final int[] x;
+	private final int[] y;
+	private final int[] systemOut;
+	private final int[] xOut;
+	private final int[] yOut;
+
+	private JumpNodeTable(int[] ids, int[] system, int[] x, int[] y, int[] systemOut, int[] xOut, int[] yOut) {
+		this.ids = ids;
+		this.system = system;
+		this.x = x;
+		this.y = y;
+		this.systemOut = systemOut;
+		this.xOut = xOut;
+		this.yOut = yOut;
+	}
+
+	/**
+	 * @param jumpNodes Beliebige JNs, zum Beispiel generierte.
+	 * @return Tabelle mit den JNs nach Id sortiert.
+	 */
+	public static JumpNodeTable of(Collection<JumpNode> jumpNodes) {
+		List<JumpNode> sorted = new ArrayList<JumpNode>(jumpNodes);
+		sorted.sort(Comparator.comparingInt(JumpNode::getId));
+		int n = sorted.size();
+		int[][] columns = new int[COLUMNS][n];
+		for (int i = 0; i < n; i++) {
+			JumpNode jn = sorted.get(i);
+			columns[0][i] = jn.getId();
+			columns[1][i] = jn.getSystem();
+			columns[2][i] = jn.getX();
+			columns[3][i] = jn.getY();
+			columns[4][i] = jn.getSystemOut();
+			columns[5][i] = jn.getXOut();
+			columns[6][i] = jn.getYOut();
+		}
+		return of(columns);
+	}
+
+	private static JumpNodeTable of(int[][] columns) {
+		return new JumpNodeTable(columns[0], columns[1], columns[2], columns[3], columns[4], columns[5], columns[6]);
+	}
+
+	/**
+	 * Liest nur die benoetigten Spalten aller nicht versteckten JNs. Die Zeilen werden mit einem
+	 * Cursor gelesen und direkt in die Arrays uebernommen.
+	 *
+	 * @return Alle nicht versteckten JNs aus der DB.
+	 */
+	public static JumpNodeTable loadFromDB() {
+		Session db = HibernateUtils.createSession();
+		try {
+			ScrollableResults rows = db
+					.createQuery("SELECT id, system, x, y, systemout, xout, yout FROM JumpNode WHERE hidden=false ORDER BY id")
+					.setReadOnly(true).setFetchSize(1000).scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				int[][] columns = new int[COLUMNS][1024];
+				int n = 0;
+				while (rows.next()) {
+					if (n == columns[0].length) {
+						for (int c = 0; c < COLUMNS; c++) {
+							columns[c] = Arrays.copyOf(columns[c], n * 2);
+						}
+					}
+					for (int c = 0; c < COLUMNS; c++) {
+						columns[c][n] = rows.getInteger(c);
+					}
+					n++;
+				}
+				for (int c = 0; c < COLUMNS; c++) {
+					columns[c] = Arrays.copyOf(columns[c], n);
+				}
+				return of(columns);
+			} finally {
+				rows.close();
+			}
+		} finally {
+			db.close();
+		}
+	}
+
+	/**
+	 * Laedt die Tabelle aus der Snapshot-Datei. Gibt es die Datei nicht oder ist sie ungueltig, wird
+	 * aus der DB gelesen und die Datei neu geschrieben.
+	 *
+	 * @param file Snapshot-Datei.
+	 * @return Die geladene Tabelle.
+	 */
+	public static JumpNodeTable loadOrQuery(File file) {
+		try {
+			JumpNodeTable table = load(file);
+			if (table != null) {
+				return table;
+			}
+		} catch (IOException ex) {
+			System.out.println("Failed to read JN snapshot: " + ex);
+		}
+		JumpNodeTable table = loadFromDB();
+		try {
+			table.save(file);
+		} catch (IOException ex) {
+			System.out.println("Failed to write JN snapshot: " + ex);
+		}
+		return table;
+	}
+
+	/**
+	 * Liest die Snapshot-Datei ueber ein Memory-Mapping.
+	 *
+	 * @return Die gespeicherte Tabelle oder null, wenn es keine Datei gibt oder das Format nicht passt.
+	 */
+	public static JumpNodeTable load(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_VERSION) {
+				return null;
+			}
+			int n = buffer.getInt();
+			if (n < 0 || channel.size() != HEADER_SIZE + 4L * COLUMNS * n) {
+				return null;
+			}
+			IntBuffer ints = buffer.asIntBuffer();
+			int[][] columns = new int[COLUMNS][n];
+			for (int c = 0; c < COLUMNS; c++) {
+				ints.get(columns[c]);
+			}
+			return of(columns);
+		}
+	}
+
+	/**
+	 * Schreibt die Tabelle in die Snapshot-Datei. Die Datei wird erst ueber eine temporaere Datei
+	 * ersetzt, wenn alles geschrieben ist.
+	 */
+	public void save(File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * COLUMNS * size());
+			buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(size());
+			IntBuffer ints = buffer.asIntBuffer();
+			for (int[] column : new int[][] { ids, system, x, y, systemOut, xOut, yOut }) {
+				ints.put(column);
+			}
+			buffer.rewind();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * @return Anzahl der JNs.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	public int getId(int index) {
+		return ids[index];
+	}
+
+	public int getSystem(int index) {
+		return system[index];
+	}
+
+	public int getX(int index) {
+		return x[index];
+	}
+
+	public int getY(int index) {
+		return y[index];
+	}
+
+	public int getSystemOut(int index) {
+		return systemOut[index];
+	}
+
+	public int getXOut(int index) {
+		return xOut[index];
+	}
+
+	public int getYOut(int index) {
+		return yOut[index];
+	}
+
+	/**
+	 * @return true, wenn beide Tabellen die gleichen JNs mit den gleichen Koordinaten enthalten.
+	 */
+	public boolean hasSameContent(JumpNodeTable other) {
+		return Arrays.equals(ids, other.ids) && Arrays.equals(system, other.system) && Arrays.equals(x, other.x)
+				&& Arrays.equals(y, other.y) && Arrays.equals(systemOut, other.systemOut)
+				&& Arrays.equals(xOut, other.xOut) && Arrays.equals(yOut, other.yOut);
+	}
+
+	/**
+	 * @return Alle JNs als Objekte ohne DB-Anbindung und ohne Namen, nach Id sortiert.
+	 */
+	public List<JumpNode> toJumpNodes() {
+		List<JumpNode> jumpNodes = new ArrayList<JumpNode>(size());
+		for (int i = 0; i < size(); i++) {
+			jumpNodes.add(new JumpNodeExt(ids[i], new Location(system[i], x[i], y[i]),
+					new Location(systemOut[i], xOut[i], yOut[i]), ""));
+		}
+		return jumpNodes;
+	}
+}
@@ -1,24 +1,34 @@
 package adver.sarius.ds2tools;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
+import adver.sarius.ds2tools.datacollector.DBWriter;
+import adver.sarius.ds2tools.datacollector.JDBCWriter;
+import adver.sarius.ds2tools.datacollector.LoadDataWriter;
 import adver.sarius.ds2tools.datacollector.SQLWriter;
-import adver.sarius.ds2tools.datacollector.SchiffInfoProcessor;
+import adver.sarius.ds2tools.datacollector.SchiffInfoImport;
+import adver.sarius.ds2tools.datacollector.SchiffInfoManifest;
+import adver.sarius.ds2tools.datacollector.SchiffInfoNames;
+import adver.sarius.ds2tools.pathfinder.DistanceFieldCache;
+import adver.sarius.ds2tools.pathfinder.DistanceSweep;
+import adver.sarius.ds2tools.pathfinder.FarthestPair;
+import adver.sarius.ds2tools.pathfinder.FarthestPairSolver;
+import adver.sarius.ds2tools.pathfinder.JumpNodeDistanceMatrix;
+import adver.sarius.ds2tools.pathfinder.JumpNodeGraph;
 import adver.sarius.ds2tools.pathfinder.PathDistanceTupel;
 import adver.sarius.ds2tools.pathfinder.Pathfinder;
+import adver.sarius.ds2tools.pathfinder.RouteServer;
+import adver.sarius.ds2tools.pathfinder.SystemOverlay;
 import net.driftingsouls.ds2.server.Location;
-import net.driftingsouls.ds2.server.ships.ShipBaubar;
-import net.driftingsouls.ds2.server.ships.ShipType;
+import net.driftingsouls.ds2.server.config.StarSystem;
 
 public class Main {
 	
@@ -41,6 +51,10 @@ public class Main {
 			System.exit(0);
 		}
 		
+		if (config.pathfinder.getSnapshotFile() != null) {
+			Data.setSnapshotFile(new File(config.pathfinder.getSnapshotFile()));
+		}
+		
 		if(config.pathfinder.isPathEnabled()){
 			doPathFinder();
 		}
@@ -50,39 +64,73 @@ public class Main {
 		if(config.datacollector.isSchiffInfoEnabled()){
 			doSchiffInfoProcessor();
 		}
+		if(config.pathfinder.isServerEnabled()){
+			doRouteServer();
+		}
 		System.out.println("Finished");
 	}
 	
 	
 	public static void doSchiffInfoProcessor(){
-		List<ShipType> ships = new ArrayList<>();
-		List<ShipBaubar> bau = new ArrayList<>();
-		try{
-			File[] files = new File(config.datacollector.getSchiffinfoDirectory())
-					.listFiles((dir, name) -> name.matches("\\d+\\.html"));
-			// TODO: Einwegwerft Impulsor
-			for(File file : files){
-				BufferedReader reader = new BufferedReader(new FileReader(file));
-				SchiffInfoProcessor sip = new SchiffInfoProcessor();
-				sip.readPage(reader, sip.toInt(sip.subString(file.getName(), null,".html")));
-				bau.add(sip.getShipBaubar());
-				ships.add(sip.getShipType());
-				reader.close();
+		DBWriter writer = createDBWriter();
+		if (writer == null) {
+			return;
+		}
+		SchiffInfoNames names = loadSchiffInfoNames();
+		SchiffInfoImport schiffInfoImport = new SchiffInfoImport(new File(config.datacollector.getSchiffinfoDirectory()),
+				writer, config.datacollector.getSchiffInfoThreads(), config.datacollector.getSchiffInfoWindow(), names);
+		if (config.datacollector.isSchiffInfoIncremental()) {
+			String manifestFile = config.datacollector.getSchiffInfoManifestFile();
+			File manifest = manifestFile != null ? new File(manifestFile)
+					: new File(config.datacollector.getWriteDirectory(), "schiffinfo_manifest.txt");
+			String fingerprint = SchiffInfoManifest.getFingerprint(names);
+			try {
+				schiffInfoImport.setManifest(SchiffInfoManifest.load(manifest, fingerprint));
+			} catch (IOException ex) {
+				System.out.println("Failed to read manifest, importing all pages: " + ex);
+				schiffInfoImport.setManifest(SchiffInfoManifest.empty(manifest, fingerprint));
 			}
-		} catch(IOException ex){
-			System.out.println("Failed to read SchiffInfo files: " + ex);
 		}
-		
-		SQLWriter writer = new SQLWriter(config.datacollector.getWriteDirectory());
-		
-		ships.sort((s1, s2) -> s1.getId() - s2.getId());
-		writer.writeList(ships);
-		
-		// Could take ShipBaubar from module=werft with correct IDs and npc ships.
-		// But that would be without res or race info
-		bau.removeIf(b -> b.getDauer() <= 0);
-		bau.sort((b1, b2) -> b1.getType().getId() - b2.getType().getId());
-		writer.writeList(bau);
+		schiffInfoImport.run();
+	}
+
+	/**
+	 * @return Writer fuer {@code datacollector.write.format} oder null, wenn das Format unbekannt ist.
+	 */
+	private static DBWriter createDBWriter() {
+		String directory = config.datacollector.getWriteDirectory();
+		boolean replace = config.datacollector.isSchiffInfoIncremental();
+		switch (config.datacollector.getWriteFormat()) {
+		case "sql":
+			return new SQLWriter(directory, config.datacollector.getWriteBatchSize(), replace);
+		case "tsv":
+			return new LoadDataWriter(directory, LoadDataWriter.Format.TSV, replace);
+		case "csv":
+			return new LoadDataWriter(directory, LoadDataWriter.Format.CSV, replace);
+		case "database":
+			return new JDBCWriter(config.datacollector.getWriteBatchSize(), replace);
+		default:
+			System.out.println("Unknown write format: " + config.datacollector.getWriteFormat());
+			return null;
+		}
+	}
+
+	/**
+	 * @return Die Standardnamen, ergaenzt um die aus {@code datacollector.schiffinfo.names}.
+	 */
+	private static SchiffInfoNames loadSchiffInfoNames() {
+		String file = config.datacollector.getSchiffInfoNamesFile();
+		if (file == null) {
+			return SchiffInfoNames.getDefault();
+		}
+		Properties names = new Properties();
+		try (InputStreamReader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			names.load(reader);
+		} catch (IOException ex) {
+			System.out.println("Failed to read SchiffInfo names: " + ex);
+			return SchiffInfoNames.getDefault();
+		}
+		return SchiffInfoNames.getDefault().extend(names);
 	}
 		
 	/**
@@ -98,6 +146,12 @@ public class Main {
 		int maxResults = config.pathfinder.getMaxResults();
 
 		Pathfinder pf = new Pathfinder(maxDistance, onlyBest);
+		pf.setMaxResults(maxResults);
+		if (config.pathfinder.isMatrixEnabled()) {
+			pf.setDistanceMatrix(getDistanceMatrix());
+		} else if (config.pathfinder.isOverlayEnabled()) {
+			pf.setSystemOverlay(new SystemOverlay(pf.getGraph()));
+		}
 		pf.calculatePaths(start, end, jnsToAvoid);
 		result = pf.getPathResults();
 		
@@ -106,42 +160,55 @@ public class Main {
 		}
 	}
 
+	/**
+	 * Routen per HTTP anbieten. Der Server laeuft weiter, nachdem main beendet ist.
+	 */
+	public static void doRouteServer(){
+		try {
+			RouteServer server = new RouteServer(config.pathfinder.getServerPort(), config.pathfinder.getServerThreads(),
+					config.pathfinder.getServerCacheSize(), config.pathfinder.getMaxDistance(),
+					config.pathfinder.getServerMaxResults(), config.pathfinder.getServerSystemCacheSize());
+			Data.getUniverse();
+			if (config.pathfinder.getServerReload() > 0) {
+				Data.startAutoReload(config.pathfinder.getServerReload());
+			}
+			server.start();
+			System.out.println("Route server listening on port " + config.pathfinder.getServerPort());
+		} catch (IOException ex) {
+			System.out.println("Failed to start route server: " + ex);
+		}
+	}
+
 	/**
 	 * Die am weitesten voneinander entfernten Punkte innerhalb eines Systems finden.
-	 * Fuer Eta Nebular ausgelegt. Einiges an Optimierungsbedarf.
 	 */
-	// TODO: arschlangsam
 	public static void doBiggestShortestDistance(){
-		Pathfinder pf = new Pathfinder(400, true);
-		int width = 400;
-		int height = 200;
-		int system = 605;
+		int system = config.pathfinder.getDistanceSystem();
+		StarSystem starSystem = Data.getStarSystem(system);
+		JumpNodeDistanceMatrix matrix = getDistanceMatrix();
 		
-		int counter = 0;
-		PathDistanceTupel max = new PathDistanceTupel(Collections.emptyList(), 205);
-		for(int x = config.pathfinder.getDistanceX(); x <= width; x++) {
-			System.out.println("starting with x="+x);
-			for(int y = 1; y <= height; y++) {
-				System.out.println("starting with y="+y);
-				Location start = new Location(system, x, y);
-				for(int x2 = x; x2 <= width; x2++) {
-					for(int y2 = 1; y2 <= height; y2++) {
-						// TODO: correct index instead of skipping?
-						if(x2-x <= max.getDistance() && Math.abs(y2-y) <= max.getDistance()){
-							continue;
-						}
-						Location end = new Location(system, x2, y2);
-						pf.calculatePaths(start, end, null);
-						counter++;
-						PathDistanceTupel result = pf.getPathResults().get(0);
-						if(result.getDistance() > max.getDistance()){
-							max = result;
-							System.out.printf("(%d) New max distance: %s \n", counter, pf.toString(start, end, max));
-						}
-					}
-				}
-			}
+		FarthestPairSolver solver = new FarthestPairSolver(new DistanceFieldCache(matrix), system,
+				starSystem.getWidth(), starSystem.getHeight());
+		DistanceSweep sweep = new DistanceSweep(solver, config.pathfinder.getDistanceThreads());
+		FarthestPair max = sweep.run(config.pathfinder.getDistanceX(), config.pathfinder.getDistanceCurrentMax());
+		
+		if (max.getStart() == null) {
+			System.out.printf("Finished: nothing bigger than %d\n", max.getDistance());
+			return;
+		}
+		Pathfinder pf = new Pathfinder(matrix.getGraph());
+		PathDistanceTupel path = matrix.findShortestPath(max.getStart(), max.getEnd(), Integer.MAX_VALUE);
+		System.out.printf("Finished: %s\n", pf.toString(max.getStart(), max.getEnd(), path));
+	}
+	
+	/**
+	 * @return Die Distanz-Matrix aller JNs, aus der Datei falls konfiguriert.
+	 */
+	private static JumpNodeDistanceMatrix getDistanceMatrix(){
+		JumpNodeGraph graph = JumpNodeGraph.getInstance();
+		if (config.pathfinder.isMatrixEnabled()) {
+			return JumpNodeDistanceMatrix.loadOrCalculate(graph, new File(config.pathfinder.getMatrixFile()));
 		}
-		System.out.printf("(%d) Finished: %s",counter, max.getDistance()); // TODO: Max start/end fehlt
+		return JumpNodeDistanceMatrix.calculate(graph);
 	}
 }
\ No newline at end of file
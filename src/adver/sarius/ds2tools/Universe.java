@@ -0,0 +1,58 @@
+package adver.sarius.ds2tools;
+
+import java.util.Collection;
+
+import adver.sarius.ds2tools.pathfinder.JumpNodeGraph;
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * Unveraenderlicher Stand aller JNs mit Index und Graph. Wird als Ganzes ausgetauscht, wenn sich
+ * die JNs aendern. Wer einen Stand haelt, rechnet bis zum Ende mit diesem weiter, auch wenn
+ * inzwischen ein neuer geladen wurde.
+ */
+public final class Universe {
+
+	/** Wird bei jedem Austausch um eins erhoeht. **/
+	private final long version;
+	private final JumpNodeTable table;
+	private final JumpNodeIndex index;
+	private final JumpNodeGraph graph;
+
+	/**
+	 * Baut Index und Graph sofort auf, damit der Stand danach nur noch gelesen wird.
+	 *
+	 * @param version Versionsnummer des Stands.
+	 * @param table Alle JNs.
+	 */
+	public Universe(long version, JumpNodeTable table) {
+		this(version, table, table.toJumpNodes());
+	}
+
+	/**
+	 * @param version Versionsnummer des Stands.
+	 * @param table Alle JNs.
+	 * @param jumpNodes Die gleichen JNs als Objekte, die ueber den Index geliefert werden.
+	 */
+	public Universe(long version, JumpNodeTable table, Collection<JumpNode> jumpNodes) {
+		this.version = version;
+		this.table = table;
+		this.index = new JumpNodeIndex(jumpNodes);
+		this.graph = new JumpNodeGraph(table);
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public JumpNodeTable getTable() {
+		return table;
+	}
+
+	public JumpNodeIndex getIndex() {
+		return index;
+	}
+
+	public JumpNodeGraph getGraph() {
+		return graph;
+	}
+}
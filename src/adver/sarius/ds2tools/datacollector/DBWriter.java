@@ -0,0 +1,68 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Target for the collected rows, e.g. SQL files or the database.
+ */
+public interface DBWriter {
+
+	/**
+	 * Opens the table of the given object. Nothing is written yet, rows are written one by one with
+	 * {@link TableWriter#write(DS2DBInfo)}.
+	 * 
+	 * @param info any object of the table, used for the table name and keys.
+	 * @return writer for the table, has to be closed.
+	 * @throws IOException if the table can't be opened.
+	 */
+	public TableWriter openTable(DS2DBInfo info) throws IOException;
+
+	/**
+	 * Deletes the rows with the given ids.
+	 * 
+	 * @param table name of the table.
+	 * @param ids values of the {@code id} column of the rows to delete.
+	 * @throws IOException if the rows can't be deleted.
+	 */
+	public void deleteRows(String table, Collection<Integer> ids) throws IOException;
+
+	/**
+	 * Writes all objects to the table of the first one.
+	 * 
+	 * @param toWrite objects to write, all of the same table.
+	 */
+	default <T> void writeList(List<T> toWrite) {
+		if (toWrite == null || toWrite.isEmpty()) {
+			System.out.println("Nothing to write.");
+			return;
+		}
+		if (!(toWrite.get(0) instanceof DS2DBInfo)) {
+			System.out.println("Can't write class: " + toWrite.get(0).getClass());
+			return;
+		}
+		try (TableWriter writer = openTable((DS2DBInfo) toWrite.get(0))) {
+			for (Object o : toWrite) {
+				writer.write((DS2DBInfo) o);
+			}
+		} catch (IOException ex) {
+			System.out.println("Can't write to file: " + ex);
+		}
+	}
+
+	/**
+	 * Writes the rows of one table as they come in, without keeping them all in memory.
+	 */
+	public interface TableWriter extends Closeable {
+
+		/**
+		 * Writes one row.
+		 * 
+		 * @param info the row to write. Must be of the same table the writer was opened for.
+		 * @throws IOException if the row can't be written.
+		 */
+		public void write(DS2DBInfo info) throws IOException;
+	}
+}
@@ -1,17 +1,43 @@
 package adver.sarius.ds2tools.datacollector;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface DS2DBInfo {
 
 	public String getDBTable();
 
+	/**
+	 * @return the columns of the table. Should be the same list for every row of the table.
+	 */
 	public List<String> getDBKeys();
 
-	public List<Object> getDBValues();
+	/**
+	 * Writes all values in the order of {@link #getDBKeys()}.
+	 * 
+	 * @param sink receives the values.
+	 * @throws IOException if the sink fails.
+	 */
+	public void writeDBValues(RowSink sink) throws IOException;
+
+	/**
+	 * @return all values in the order of {@link #getDBKeys()}. Creates a new list, writers should
+	 *         use {@link #writeDBValues(RowSink)}.
+	 */
+	default List<Object> getDBValues() {
+		List<Object> values = new ArrayList<>(getDBKeys().size());
+		try {
+			writeDBValues(new ListRowSink(values));
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return values;
+	}
 	
 	// TODO: put in some util class?
 	default int boolToInt(boolean bool){
 		return bool ? 1 : 0;
 	}
-}
\ No newline at end of file
+}
@@ -2,11 +2,23 @@ package adver.sarius.ds2tools.datacollector;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 public abstract class DSPageProcessor {
 	
-	public abstract void readPage(BufferedReader page, int id) throws IOException;
+	/**
+	 * Reads the page line by line.
+	 * 
+	 * @param page lines of the page.
+	 * @param id id of the page.
+	 * @throws IOException if the page can't be read.
+	 */
+	public abstract void readPage(LineSource page, int id) throws IOException;
+
+	public void readPage(BufferedReader page, int id) throws IOException {
+		readPage(page::readLine, id);
+	}
 	
 	// TODO: Auslagern nach util?
 	/**
@@ -44,50 +56,164 @@ public abstract class DSPageProcessor {
 	 * @return number as an int.
 	 */
 	public int toInt(String number) {
-		return Integer.parseInt(number.trim().replaceAll("\\.", ""));
+		return parseInt(number, 0, number.length());
+	}
+
+	/**
+	 * Same as {@code toInt(subString(line, prefix, suffix))}, but parses the number directly from
+	 * the line without creating substrings.
+	 * 
+	 * @param line the line to work with.
+	 * @param prefix after the first occurrence of the prefix the number starts.
+	 * @param suffix the number ends with the suffix.
+	 * @return number between prefix and suffix as an int.
+	 */
+	public int toInt(String line, String prefix, String suffix) {
+		int start = 0;
+		if (prefix != null) {
+			start = line.indexOf(prefix) + prefix.length();
+		}
+		int end = line.length();
+		if (suffix != null) {
+			end = line.indexOf(suffix, start);
+			if (end < 0) {
+				throw new StringIndexOutOfBoundsException("Suffix not found: " + suffix);
+			}
+		}
+		return parseInt(line, start, end);
+	}
+
+	/**
+	 * Parses the integer in the range of the line. Surrounding whitespace and all '.' characters
+	 * are ignored.
+	 */
+	private int parseInt(String line, int start, int end) {
+		while (start < end && line.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && line.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		int i = start;
+		while (i < end && line.charAt(i) == '.') {
+			i++;
+		}
+		boolean negative = false;
+		if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+			negative = line.charAt(i) == '-';
+			i++;
+		}
+		long value = 0;
+		boolean digits = false;
+		for (; i < end; i++) {
+			char c = line.charAt(i);
+			if (c == '.') {
+				continue;
+			}
+			if (c < '0' || c > '9') {
+				throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+			}
+			value = value * 10 + (c - '0');
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+			}
+			digits = true;
+		}
+		if (!digits || (!negative && value > Integer.MAX_VALUE)) {
+			throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+		}
+		return (int) (negative ? -value : value);
 	}
 
 	/**
 	 * Converts some html tags into DS2 format to be stored in the DB.
+	 * The text is read once from start to end. Styles of a span can be combined, like
+	 * {@code color:#ff0000;font-weight:bold}. Unknown styles are dropped, but the text inside
+	 * of the span is kept. Spans that aren't closed are closed at the end of the text. Line breaks
+	 * become CR LF, the escaping for the DB is done by the writer.
 	 * 
 	 * @param html the text with html tags.
 	 * @return same text with replaced tags.
 	 */
 	public String convertHtmlToBBCode(String html) {
-		html = html.replaceAll("<br>", "\\\\r\\\\n");
-		Stack<String> closingTags = new Stack<>();
-		int counter = 0;
-		while (true && counter++ < 100) {
-			int opening = html.indexOf("<span style=");
-			int closing = html.indexOf("</span>");
-
-			if (opening < closing && opening >= 0) {
-				String tagContent = subString(html, "<span style=\"", "\">");
-				if (tagContent.startsWith("color:")) {
-					String color = tagContent.substring(6);
-					html = html.replaceFirst("<span style=\"color:" + color + "\">", "[color=" + color + "]");
-					closingTags.push("[/color]");
-				} else if (tagContent.equals("font-weight:bold")) {
-					html = html.replaceFirst("<span style=\"font-weight:bold\">", "[b]");
-					closingTags.push("[/b]");
-				} else if (tagContent.equals("text-decoration:underline")) {
-					html = html.replaceFirst("<span style=\"text-decoration:underline\">", "[u]");
-					closingTags.push("[/u]");
-				} else if (tagContent.equals("font-style:italic")) {
-					html = html.replaceFirst("<span style=\"font-style:italic\">", "[i]");
-					closingTags.push("[/i]");
-				} else {
-					// TODO: remove unknown tag to continue?
-					System.out.println("convertHtmlToBBCode: Unknown tagContent: " + tagContent);
-					break;
+		StringBuilder result = new StringBuilder(html.length() + 16);
+		Deque<String> closingTags = new ArrayDeque<>();
+		// First '">' after the last span with styles, -1 if there is none. Reused by the following
+		// spans as long as it is behind them, so the text is searched only once.
+		int nextStyleEnd = 0;
+		int pos = 0;
+		while (pos < html.length()) {
+			int tag = html.indexOf('<', pos);
+			if (tag < 0) {
+				result.append(html, pos, html.length());
+				break;
+			}
+			result.append(html, pos, tag);
+			int styleEnd = -1;
+			if (html.startsWith("<span style=\"", tag)) {
+				if (nextStyleEnd >= 0 && nextStyleEnd <= tag) {
+					nextStyleEnd = html.indexOf("\">", tag);
 				}
-			} else if (opening > closing || (opening < 0 && closing >= 0)) {
-				html = html.replaceFirst("</span>", closingTags.pop());
+				styleEnd = nextStyleEnd;
+			}
+			if (html.startsWith("<br>", tag)) {
+				result.append("\r\n");
+				pos = tag + "<br>".length();
+			} else if (html.startsWith("</span>", tag) && !closingTags.isEmpty()) {
+				result.append(closingTags.pop());
+				pos = tag + "</span>".length();
+			} else if (styleEnd >= 0) {
+				closingTags.push(appendStyles(result, html, tag + "<span style=\"".length(), styleEnd));
+				pos = styleEnd + "\">".length();
 			} else {
-				break;
+				result.append('<');
+				pos = tag + 1;
+			}
+		}
+		while (!closingTags.isEmpty()) {
+			result.append(closingTags.pop());
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Appends the opening tags for all styles of a span.
+	 * 
+	 * @return the matching closing tags in reverse order.
+	 */
+	private String appendStyles(StringBuilder result, String html, int start, int end) {
+		StringBuilder closing = new StringBuilder();
+		while (start < end) {
+			int next = start;
+			while (next < end && html.charAt(next) != ';') {
+				next++;
+			}
+			String style = html.substring(start, next).trim();
+			start = next + 1;
+			String opening;
+			String close;
+			if (style.startsWith("color:")) {
+				opening = "[color=" + style.substring(6).trim() + "]";
+				close = "[/color]";
+			} else if (style.equals("font-weight:bold")) {
+				opening = "[b]";
+				close = "[/b]";
+			} else if (style.equals("text-decoration:underline")) {
+				opening = "[u]";
+				close = "[/u]";
+			} else if (style.equals("font-style:italic")) {
+				opening = "[i]";
+				close = "[/i]";
+			} else {
+				if (!style.isEmpty()) {
+					System.out.println("convertHtmlToBBCode: Unknown tagContent: " + style);
+				}
+				continue;
 			}
+			result.append(opening);
+			closing.insert(0, close);
 		}
-		return html;
+		return closing.toString();
 	}
 
 	/**
@@ -0,0 +1,230 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import adver.sarius.ds2tools.HibernateUtils;
+
+/**
+ * Writes the rows directly into the database of {@link HibernateUtils}. The rows are sent as JDBC
+ * batches of {@code batchSize} rows over one prepared statement. The values are set directly
+ * as typed parameters. Each table is written in one
+ * transaction, which is rolled back if a batch fails.
+ * <p>
+ * For MySQL, {@code rewriteBatchedStatements=true} in the connection url lets the driver send each
+ * batch as one multi-row insert.
+ */
+public class JDBCWriter implements DBWriter {
+
+	private int batchSize;
+	private boolean replace;
+
+	public JDBCWriter(int batchSize) {
+		this(batchSize, false);
+	}
+
+	/**
+	 * @param batchSize number of rows sent to the database at once.
+	 * @param replace replace existing rows with the same key.
+	 */
+	public JDBCWriter(int batchSize, boolean replace) {
+		this.batchSize = Math.max(1, batchSize);
+		this.replace = replace;
+	}
+
+	@Override
+	public TableWriter openTable(DS2DBInfo info) throws IOException {
+		try {
+			return new JDBCTableWriter(info);
+		} catch (HibernateException ex) {
+			throw new IOException("Can't open table " + info.getDBTable(), ex);
+		}
+	}
+
+	@Override
+	public void deleteRows(String table, Collection<Integer> ids) throws IOException {
+		String delete = "DELETE FROM `" + table + "` WHERE `id` = ?";
+		Session session = HibernateUtils.createSession();
+		Transaction transaction = session.beginTransaction();
+		boolean committed = false;
+		try {
+			session.doWork(connection -> {
+				try (PreparedStatement statement = connection.prepareStatement(delete)) {
+					int count = 0;
+					for (int id : ids) {
+						statement.setInt(1, id);
+						statement.addBatch();
+						if (++count % batchSize == 0) {
+							statement.executeBatch();
+						}
+					}
+					statement.executeBatch();
+				}
+			});
+			transaction.commit();
+			committed = true;
+		} catch (HibernateException ex) {
+			throw new IOException("Can't delete rows: " + delete, ex);
+		} finally {
+			if (!committed) {
+				transaction.rollback();
+			}
+			session.close();
+		}
+	}
+
+	private class JDBCTableWriter implements TableWriter {
+		private final String insert;
+		private final Session session;
+		private final Transaction transaction;
+		private final List<DS2DBInfo> rows = new ArrayList<DS2DBInfo>(batchSize);
+
+		private JDBCTableWriter(DS2DBInfo info) {
+			List<String> keys = info.getDBKeys();
+			this.insert = keys.stream().collect(Collectors.joining("`, `",
+					(replace ? "REPLACE" : "INSERT") + " INTO `" + info.getDBTable() + "` (`", "`) VALUES "))
+					+ Collections.nCopies(keys.size(), "?").stream().collect(Collectors.joining(", ", "(", ")"));
+			this.session = HibernateUtils.createSession();
+			this.transaction = session.beginTransaction();
+		}
+
+		@Override
+		public void write(DS2DBInfo info) throws IOException {
+			rows.add(info);
+			if (rows.size() == batchSize) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			try {
+				session.doWork(connection -> {
+					try (PreparedStatement statement = connection.prepareStatement(insert)) {
+						ParameterSink parameters = new ParameterSink(statement);
+						for (DS2DBInfo row : rows) {
+							parameters.index = 0;
+							row.writeDBValues(parameters);
+							statement.addBatch();
+						}
+						statement.executeBatch();
+					} catch (IOException ex) {
+						throw new SQLException(ex.getMessage(), ex.getCause());
+					}
+				});
+			} catch (HibernateException ex) {
+				throw new IOException("Can't write batch: " + insert, ex);
+			}
+			rows.clear();
+		}
+
+		/**
+		 * Sets the values of a row as parameters of the statement.
+		 */
+		private class ParameterSink implements RowSink {
+			private final PreparedStatement statement;
+			/** Parameters already set in the current row. */
+			private int index;
+
+			private ParameterSink(PreparedStatement statement) {
+				this.statement = statement;
+			}
+
+			@Override
+			public void writeInt(int value) throws IOException {
+				try {
+					statement.setInt(++index, value);
+				} catch (SQLException ex) {
+					throw new IOException(ex.getMessage(), ex);
+				}
+			}
+
+			@Override
+			public void writeLong(long value) throws IOException {
+				try {
+					statement.setLong(++index, value);
+				} catch (SQLException ex) {
+					throw new IOException(ex.getMessage(), ex);
+				}
+			}
+
+			@Override
+			public void writeDouble(double value) throws IOException {
+				try {
+					statement.setDouble(++index, value);
+				} catch (SQLException ex) {
+					throw new IOException(ex.getMessage(), ex);
+				}
+			}
+
+			@Override
+			public void writeBoolean(boolean value) throws IOException {
+				writeInt(value ? 1 : 0);
+			}
+
+			@Override
+			public void writeString(CharSequence value) throws IOException {
+				try {
+					if (value == null) {
+						statement.setNull(++index, Types.VARCHAR);
+					} else {
+						statement.setString(++index, value.toString());
+					}
+				} catch (SQLException ex) {
+					throw new IOException(ex.getMessage(), ex);
+				}
+			}
+
+			@Override
+			public void writeNull() throws IOException {
+				try {
+					statement.setNull(++index, Types.NULL);
+				} catch (SQLException ex) {
+					throw new IOException(ex.getMessage(), ex);
+				}
+			}
+
+			@Override
+			public void writeObject(Object value) throws IOException {
+				if (value == null) {
+					writeNull();
+					return;
+				}
+				try {
+					statement.setObject(++index, value);
+				} catch (SQLException ex) {
+					throw new IOException(ex.getMessage(), ex);
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			boolean committed = false;
+			try {
+				if (!rows.isEmpty()) {
+					flush();
+				}
+				transaction.commit();
+				committed = true;
+			} catch (HibernateException ex) {
+				throw new IOException("Can't commit " + insert, ex);
+			} finally {
+				if (!committed) {
+					transaction.rollback();
+				}
+				session.close();
+			}
+		}
+	}
+}
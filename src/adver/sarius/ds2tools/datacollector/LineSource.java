@@ -0,0 +1,16 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.IOException;
+
+/**
+ * Lines of a page, read one after another. Like {@link java.io.BufferedReader#readLine()}, so a
+ * reader can be passed as {@code reader::readLine}.
+ */
+public interface LineSource {
+
+	/**
+	 * @return the next line without line break, or null at the end of the page.
+	 * @throws IOException if the page can't be read.
+	 */
+	public String readLine() throws IOException;
+}
@@ -0,0 +1,50 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.util.List;
+
+/**
+ * Collects the values of a row into a list for {@link DS2DBInfo#getDBValues()}.
+ */
+class ListRowSink implements RowSink {
+
+	private final List<Object> values;
+
+	ListRowSink(List<Object> values) {
+		this.values = values;
+	}
+
+	@Override
+	public void writeInt(int value) {
+		values.add(value);
+	}
+
+	@Override
+	public void writeLong(long value) {
+		values.add(value);
+	}
+
+	@Override
+	public void writeDouble(double value) {
+		values.add(value);
+	}
+
+	@Override
+	public void writeBoolean(boolean value) {
+		values.add(value ? 1 : 0);
+	}
+
+	@Override
+	public void writeString(CharSequence value) {
+		values.add(value != null ? value.toString() : null);
+	}
+
+	@Override
+	public void writeNull() {
+		values.add(null);
+	}
+
+	@Override
+	public void writeObject(Object value) {
+		values.add(value);
+	}
+}
@@ -0,0 +1,241 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the rows as tab or comma separated values into one file per table, for MySQL
+ * {@code LOAD DATA}. The matching statement is written next to it into {@code <table>_load.sql}.
+ * The files are written in UTF-8. Deleted rows are written as statements to {@code <table>_delete.sql}.
+ */
+public class LoadDataWriter implements DBWriter {
+
+	public enum Format {
+		/**
+		 * MySQL default format: tab separated, special characters escaped with a backslash, null
+		 * as {@code \N}.
+		 */
+		TSV("tsv", "FIELDS TERMINATED BY '\\t' ENCLOSED BY '' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"),
+		/**
+		 * Comma separated, strings in double quotes with doubled quotes inside, null as
+		 * {@code NULL}.
+		 */
+		CSV("csv", "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' LINES TERMINATED BY '\\n'");
+
+		private final String extension;
+		private final String options;
+
+		private Format(String extension, String options) {
+			this.extension = extension;
+			this.options = options;
+		}
+	}
+
+	private String directory;
+	private Format format;
+	private boolean replace;
+
+	public LoadDataWriter(String directory, Format format) {
+		this(directory, format, false);
+	}
+
+	/**
+	 * @param directory directory for the files.
+	 * @param format format of the data files.
+	 * @param replace replace existing rows with the same key while loading.
+	 */
+	public LoadDataWriter(String directory, Format format, boolean replace) {
+		this.directory = directory;
+		this.format = format;
+		this.replace = replace;
+	}
+
+	@Override
+	public TableWriter openTable(DS2DBInfo info) throws IOException {
+		String table = info.getDBTable();
+		File dataFile = new File(directory, table + "." + format.extension);
+		try (Writer writer = open(new File(directory, table + "_load.sql"))) {
+			writer.write(getLoadStatement(info, dataFile));
+			writer.write('\n');
+		}
+		return new DataTableWriter(open(dataFile));
+	}
+
+	@Override
+	public void deleteRows(String table, Collection<Integer> ids) throws IOException {
+		SQLWriter.writeDeleteFile(directory, table, ids, 1000);
+	}
+
+	private static Writer open(File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the statement to load the data file into the table of {@code info}.
+	 */
+	private String getLoadStatement(DS2DBInfo info, File dataFile) throws IOException {
+		StringWriter statement = new StringWriter();
+		statement.write("LOAD DATA LOCAL INFILE ");
+		new SQLValueEncoder().writeString(statement, dataFile.getAbsolutePath());
+		statement.write(replace ? " REPLACE" : "");
+		statement.write(" INTO TABLE `ds2`.`" + info.getDBTable() + "` CHARACTER SET utf8 ");
+		statement.write(format.options);
+		statement.write(info.getDBKeys().stream().collect(Collectors.joining("`, `", " (`", "`);")));
+		return statement.toString();
+	}
+
+	private class DataTableWriter implements TableWriter, RowSink {
+		private final Writer writer;
+		private final SQLValueEncoder encoder = new SQLValueEncoder();
+		private final char separator = format == Format.TSV ? '\t' : ',';
+		/** Values already written in the current row. */
+		private int columns;
+
+		private DataTableWriter(Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(DS2DBInfo info) throws IOException {
+			columns = 0;
+			info.writeDBValues(this);
+			writer.write('\n');
+		}
+
+		private void separate() throws IOException {
+			if (columns++ > 0) {
+				writer.write(separator);
+			}
+		}
+
+		@Override
+		public void writeInt(int value) throws IOException {
+			separate();
+			encoder.writeInt(writer, value);
+		}
+
+		@Override
+		public void writeLong(long value) throws IOException {
+			separate();
+			encoder.writeLong(writer, value);
+		}
+
+		@Override
+		public void writeDouble(double value) throws IOException {
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				writeNull();
+			} else {
+				separate();
+				writer.write(Double.toString(value));
+			}
+		}
+
+		@Override
+		public void writeBoolean(boolean value) throws IOException {
+			separate();
+			encoder.writeBoolean(writer, value);
+		}
+
+		@Override
+		public void writeString(CharSequence value) throws IOException {
+			if (value == null) {
+				writeNull();
+				return;
+			}
+			separate();
+			if (format == Format.TSV) {
+				writeEscaped(value.toString());
+			} else {
+				writeQuoted(value.toString());
+			}
+		}
+
+		/**
+		 * Escapes backslash, tab, line breaks and NUL with a backslash.
+		 */
+		private void writeEscaped(String string) throws IOException {
+			int start = 0;
+			for (int i = 0; i < string.length(); i++) {
+				char escaped = getTsvEscape(string.charAt(i));
+				if (escaped != 0) {
+					writer.write(string, start, i - start);
+					writer.write('\\');
+					writer.write(escaped);
+					start = i + 1;
+				}
+			}
+			writer.write(string, start, string.length() - start);
+		}
+
+		/**
+		 * Writes the string in double quotes, quotes inside are doubled.
+		 */
+		private void writeQuoted(String string) throws IOException {
+			writer.write('"');
+			int start = 0;
+			for (int i = string.indexOf('"'); i >= 0; i = string.indexOf('"', start)) {
+				writer.write(string, start, i + 1 - start);
+				writer.write('"');
+				start = i + 1;
+			}
+			writer.write(string, start, string.length() - start);
+			writer.write('"');
+		}
+
+		@Override
+		public void writeNull() throws IOException {
+			separate();
+			writer.write(format == Format.TSV ? "\\N" : "NULL");
+		}
+
+		@Override
+		public void writeObject(Object value) throws IOException {
+			if (value == null) {
+				writeNull();
+			} else if (value instanceof Double || value instanceof Float) {
+				writeDouble(((Number) value).doubleValue());
+			} else if (value instanceof Number) {
+				separate();
+				encoder.writeValue(writer, value);
+			} else if (value instanceof Boolean) {
+				writeBoolean((Boolean) value);
+			} else {
+				writeString(value.toString());
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @return the character to write after the backslash in TSV, or 0 if {@code c} needs no
+	 *         escaping.
+	 */
+	private static char getTsvEscape(char c) {
+		switch (c) {
+		case '\\':
+			return '\\';
+		case '\t':
+			return 't';
+		case '\n':
+			return 'n';
+		case '\r':
+			return 'r';
+		case '\0':
+			return '0';
+		default:
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads pages with NIO and decodes them as UTF-8. The byte and char buffers are kept and reused for
+ * the next page, so reading many pages doesn't allocate a reader and buffers per file. Large files
+ * are memory mapped instead of copied.
+ * <p>
+ * Not thread safe, every thread needs its own source. The returned buffer and lines are only valid
+ * until the next page is read.
+ */
+public class PageSource {
+
+	/** Files larger than this are memory mapped. */
+	private static final long MAP_THRESHOLD = 1 << 20;
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+	private CharBuffer chars = CharBuffer.allocate(64 * 1024);
+	private final Lines lines = new Lines();
+
+	/**
+	 * Reads the whole file. The channel is closed afterwards, even if reading fails.
+	 * 
+	 * @param file the file to read.
+	 * @return the content, from position to limit.
+	 * @throws IOException if the file can't be read.
+	 */
+	public ByteBuffer read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > MAP_THRESHOLD) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			if (bytes.capacity() < size) {
+				bytes = ByteBuffer.allocate((int) size);
+			}
+			bytes.clear();
+			while (channel.read(bytes) >= 0 && bytes.hasRemaining()) {
+				// read until the end or the buffer is full
+			}
+			bytes.flip();
+			return bytes;
+		}
+	}
+
+	/**
+	 * Reads the file and decodes it as UTF-8. Invalid bytes are replaced.
+	 * 
+	 * @param file the file to read.
+	 * @return the lines of the file.
+	 * @throws IOException if the file can't be read.
+	 */
+	public LineSource open(File file) throws IOException {
+		return decode(read(file));
+	}
+
+	/**
+	 * Decodes the content as UTF-8. Invalid bytes are replaced. The position of {@code content}
+	 * isn't changed.
+	 * 
+	 * @param content content of a page.
+	 * @return the lines of the content.
+	 */
+	public LineSource decode(ByteBuffer content) {
+		ByteBuffer in = content.duplicate();
+		int needed = (int) (in.remaining() * (double) decoder.maxCharsPerByte()) + 1;
+		if (chars.capacity() < needed) {
+			chars = CharBuffer.allocate(needed);
+		}
+		chars.clear();
+		decoder.reset();
+		CoderResult result = decoder.decode(in, chars, true);
+		if (result.isUnderflow()) {
+			result = decoder.flush(chars);
+		}
+		if (!result.isUnderflow()) {
+			// can't happen with the buffer size above
+			throw new IllegalStateException("Buffer too small: " + result);
+		}
+		chars.flip();
+		lines.position = 0;
+		return lines;
+	}
+
+	/**
+	 * Splits the decoded chars at \n, \r or \r\n.
+	 */
+	private class Lines implements LineSource {
+		private int position;
+
+		@Override
+		public String readLine() {
+			int limit = chars.limit();
+			if (position >= limit) {
+				return null;
+			}
+			char[] array = chars.array();
+			int offset = chars.arrayOffset();
+			int start = position;
+			int end = start;
+			while (end < limit && array[offset + end] != '\n' && array[offset + end] != '\r') {
+				end++;
+			}
+			position = end + 1;
+			if (end < limit && array[offset + end] == '\r' && position < limit && array[offset + position] == '\n') {
+				position++;
+			}
+			return new String(array, offset + start, end - start);
+		}
+	}
+}
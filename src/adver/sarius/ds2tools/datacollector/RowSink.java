@@ -0,0 +1,46 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.IOException;
+
+/**
+ * Receives the columns of one row in the order of {@link DS2DBInfo#getDBKeys()}, without boxing
+ * them into a list first.
+ */
+public interface RowSink {
+
+	public void writeInt(int value) throws IOException;
+
+	public void writeLong(long value) throws IOException;
+
+	public void writeDouble(double value) throws IOException;
+
+	/**
+	 * Booleans are stored as 0 and 1.
+	 */
+	public void writeBoolean(boolean value) throws IOException;
+
+	/**
+	 * @param value the text or null.
+	 */
+	public void writeString(CharSequence value) throws IOException;
+
+	public void writeNull() throws IOException;
+
+	/**
+	 * For values without an own method, like {@link java.math.BigInteger}.
+	 * 
+	 * @param value any value or null.
+	 */
+	public void writeObject(Object value) throws IOException;
+
+	/**
+	 * Writes the int or null.
+	 */
+	default void writeInteger(Integer value) throws IOException {
+		if (value == null) {
+			writeNull();
+		} else {
+			writeInt(value);
+		}
+	}
+}
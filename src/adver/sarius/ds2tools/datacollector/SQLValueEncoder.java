@@ -0,0 +1,135 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Writes values as MySQL literals directly into a {@link Writer}. Numbers are written unquoted,
+ * booleans as 0 and 1, null as {@code null} and everything else as an escaped string.
+ * <p>
+ * Not thread safe, every writer needs its own encoder.
+ */
+public class SQLValueEncoder {
+
+	/** Digits of a long, written from the end. */
+	private final char[] digits = new char[20];
+
+	/**
+	 * Writes the value depending on its type.
+	 * 
+	 * @param out the writer to write to.
+	 * @param value any value or null.
+	 * @throws IOException if the writer fails.
+	 */
+	public void writeValue(Writer out, Object value) throws IOException {
+		if (value == null) {
+			writeNull(out);
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			writeInt(out, ((Number) value).intValue());
+		} else if (value instanceof Long) {
+			writeLong(out, (Long) value);
+		} else if (value instanceof BigInteger || value instanceof BigDecimal) {
+			out.write(value.toString());
+		} else if (value instanceof Double || value instanceof Float) {
+			writeDouble(out, ((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			writeBoolean(out, (Boolean) value);
+		} else if (value instanceof CharSequence) {
+			writeString(out, (CharSequence) value);
+		} else {
+			writeString(out, value.toString());
+		}
+	}
+
+	public void writeNull(Writer out) throws IOException {
+		out.write("null");
+	}
+
+	public void writeBoolean(Writer out, boolean value) throws IOException {
+		out.write(value ? '1' : '0');
+	}
+
+	public void writeInt(Writer out, int value) throws IOException {
+		writeLong(out, value);
+	}
+
+	/**
+	 * Writes the number without creating a string.
+	 */
+	public void writeLong(Writer out, long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			out.write(Long.toString(value));
+			return;
+		}
+		int pos = digits.length;
+		long rest = Math.abs(value);
+		do {
+			digits[--pos] = (char) ('0' + rest % 10);
+			rest /= 10;
+		} while (rest != 0);
+		if (value < 0) {
+			digits[--pos] = '-';
+		}
+		out.write(digits, pos, digits.length - pos);
+	}
+
+	/**
+	 * Writes the number, or null for NaN and infinity, which MySQL can't store.
+	 */
+	public void writeDouble(Writer out, double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			writeNull(out);
+		} else {
+			out.write(Double.toString(value));
+		}
+	}
+
+	/**
+	 * Writes the string in single quotes. Quotes, backslashes, line breaks and the characters MySQL
+	 * treats specially are escaped with a backslash. Unescaped parts are written as a whole.
+	 */
+	public void writeString(Writer out, CharSequence value) throws IOException {
+		if (value == null) {
+			writeNull(out);
+			return;
+		}
+		String string = value.toString();
+		out.write('\'');
+		int start = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char escaped = getEscape(string.charAt(i));
+			if (escaped != 0) {
+				out.write(string, start, i - start);
+				out.write('\\');
+				out.write(escaped);
+				start = i + 1;
+			}
+		}
+		out.write(string, start, string.length() - start);
+		out.write('\'');
+	}
+
+	/**
+	 * @return the character to write after the backslash, or 0 if {@code c} needs no escaping.
+	 */
+	private static char getEscape(char c) {
+		switch (c) {
+		case '\'':
+		case '"':
+		case '\\':
+			return c;
+		case '\n':
+			return 'n';
+		case '\r':
+			return 'r';
+		case '\0':
+			return '0';
+		case '\u001a':
+			return 'Z';
+		default:
+			return 0;
+		}
+	}
+}
@@ -3,42 +3,174 @@ package adver.sarius.ds2tools.datacollector;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.stream.Collectors;
 
-public class SQLWriter {
+/**
+ * Writes the rows as insert statements into one file per table. Up to {@code batchSize} rows are
+ * grouped into one multi-row insert. With {@code replace} the statements replace existing rows and
+ * are written to {@code <table>_replace.sql} instead. Deleted rows are written to
+ * {@code <table>_delete.sql}.
+ */
+public class SQLWriter implements DBWriter {
 
 	private String directory;
+	private int batchSize;
+	private boolean replace;
 
 	public SQLWriter(String directory) {
+		this(directory, 1);
+	}
+
+	public SQLWriter(String directory, int batchSize) {
+		this(directory, batchSize, false);
+	}
+
+	/**
+	 * @param directory directory for the files.
+	 * @param batchSize maximum number of rows per insert statement.
+	 * @param replace write REPLACE instead of INSERT statements.
+	 */
+	public SQLWriter(String directory, int batchSize, boolean replace) {
 		this.directory = directory;
+		this.batchSize = Math.max(1, batchSize);
+		this.replace = replace;
+	}
+
+	@Override
+	public TableWriter openTable(DS2DBInfo info) throws IOException {
+		return new SQLTableWriter(info);
+	}
+
+	@Override
+	public void deleteRows(String table, Collection<Integer> ids) throws IOException {
+		writeDeleteFile(directory, table, ids, batchSize);
 	}
 
-	public <T> void writeList(List<T> toWrite) {
-		if (toWrite == null || toWrite.isEmpty()) {
-			System.out.println("Nothing to write.");
-			return;
+	/**
+	 * Writes delete statements for up to {@code batchSize} ids each into {@code <table>_delete.sql}.
+	 */
+	static void writeDeleteFile(String directory, String table, Collection<Integer> ids, int batchSize)
+			throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(directory + "/" + table + "_delete.sql"))) {
+			Iterator<Integer> it = ids.iterator();
+			while (it.hasNext()) {
+				writer.write("DELETE FROM `ds2`.`" + table + "` WHERE `id` IN (");
+				for (int i = 0; i < batchSize && it.hasNext(); i++) {
+					writer.write((i > 0 ? ", " : "") + it.next());
+				}
+				writer.write(");");
+				writer.newLine();
+			}
 		}
-		if (!(toWrite.get(0) instanceof DS2DBInfo)) {
-			System.out.println("Can't write class: " + toWrite.get(0).getClass());
-			return;
+	}
+
+	private class SQLTableWriter implements TableWriter {
+		private final BufferedWriter writer;
+		private final String insert;
+		private final SQLValueEncoder encoder = new SQLValueEncoder();
+		private final ValueSink values = new ValueSink();
+		/** Rows in the current insert statement. */
+		private int rows;
+
+		private SQLTableWriter(DS2DBInfo info) throws IOException {
+			String table = info.getDBTable();
+			this.insert = info.getDBKeys().stream()
+					.collect(Collectors.joining("`, `", (replace ? "REPLACE" : "INSERT") + " INTO `ds2`.`" + table + "` (`",
+							"`) VALUES "));
+			this.writer = new BufferedWriter(
+					new FileWriter(directory + "/" + table + (replace ? "_replace.sql" : "_insert.sql")));
 		}
-		DS2DBInfo info = (DS2DBInfo) toWrite.get(0);
-		String table = info.getDBTable();
-
-		String insert = info.getDBKeys().stream()
-				.collect(Collectors.joining("`, `", "INSERT INTO `ds2`.`" + table + "` (`", "`) VALUES ('"));
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter(directory + "/" + table + "_insert.sql"));
-			for (Object o : toWrite) {
-				info = (DS2DBInfo) o;
-				writer.write(info.getDBValues().stream().map(i -> i != null ? i.toString() : null)
-						.collect(Collectors.joining("', '", insert, "');")).replaceAll("'null'", "null"));
+
+		@Override
+		public void write(DS2DBInfo info) throws IOException {
+			if (rows == 0) {
+				writer.write(insert);
+			} else {
+				writer.write(",");
 				writer.newLine();
 			}
-			writer.close();
-		} catch (IOException ex) {
-			System.out.println("Can't write to file: " + ex);
+			writer.write('(');
+			values.columns = 0;
+			info.writeDBValues(values);
+			writer.write(')');
+			if (++rows == batchSize) {
+				endStatement();
+			}
+		}
+
+		private void endStatement() throws IOException {
+			writer.write(";");
+			writer.newLine();
+			rows = 0;
+		}
+
+		/**
+		 * Writes the values of a row separated by commas.
+		 */
+		private class ValueSink implements RowSink {
+			/** Values already written in the current row. */
+			private int columns;
+
+			private void separate() throws IOException {
+				if (columns++ > 0) {
+					writer.write(", ");
+				}
+			}
+
+			@Override
+			public void writeInt(int value) throws IOException {
+				separate();
+				encoder.writeInt(writer, value);
+			}
+
+			@Override
+			public void writeLong(long value) throws IOException {
+				separate();
+				encoder.writeLong(writer, value);
+			}
+
+			@Override
+			public void writeDouble(double value) throws IOException {
+				separate();
+				encoder.writeDouble(writer, value);
+			}
+
+			@Override
+			public void writeBoolean(boolean value) throws IOException {
+				separate();
+				encoder.writeBoolean(writer, value);
+			}
+
+			@Override
+			public void writeString(CharSequence value) throws IOException {
+				separate();
+				encoder.writeString(writer, value);
+			}
+
+			@Override
+			public void writeNull() throws IOException {
+				separate();
+				encoder.writeNull(writer);
+			}
+
+			@Override
+			public void writeObject(Object value) throws IOException {
+				separate();
+				encoder.writeValue(writer, value);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (rows > 0) {
+					endStatement();
+				}
+			} finally {
+				writer.close();
+			}
 		}
 	}
-}
\ No newline at end of file
+}
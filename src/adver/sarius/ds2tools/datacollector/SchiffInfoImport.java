@@ -0,0 +1,277 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports all SchiffInfo pages of a directory and writes the SQL files.
+ * <p>
+ * The pages are read as UTF-8 and parsed in parallel on a fixed number of threads. At most
+ * {@code window} pages are parsed or waiting to be written at the same time, so the memory doesn't
+ * grow with the number of pages. The results are written in order of the ship id as soon as they are available.
+ * <p>
+ * With a {@link SchiffInfoManifest} only changed pages are parsed and only changed rows are written.
+ * Rows of deleted pages and ships_baubar rows of ships that aren't buildable anymore are deleted.
+ */
+public class SchiffInfoImport {
+
+	private final File directory;
+	private final DBWriter writer;
+	private final int threads;
+	private final int window;
+	private final SchiffInfoNames names;
+	private SchiffInfoManifest manifest;
+	/** Buffers for reading the pages, one per thread of the pool. */
+	private final ThreadLocal<PageSource> sources = ThreadLocal.withInitial(PageSource::new);
+
+	/**
+	 * @param directory directory with the pages, named {@code <id>.html}.
+	 * @param writer writer for the rows.
+	 * @param threads number of threads to parse the pages.
+	 * @param window maximum number of pages in progress.
+	 */
+	public SchiffInfoImport(File directory, DBWriter writer, int threads, int window) {
+		this(directory, writer, threads, window, SchiffInfoNames.getDefault());
+	}
+
+	/**
+	 * @param directory directory with the pages, named {@code <id>.html}.
+	 * @param writer writer for the rows.
+	 * @param threads number of threads to parse the pages.
+	 * @param window maximum number of pages in progress.
+	 * @param names names of ship classes, flags and races used on the pages.
+	 */
+	public SchiffInfoImport(File directory, DBWriter writer, int threads, int window, SchiffInfoNames names) {
+		this.directory = directory;
+		this.writer = writer;
+		this.threads = threads;
+		this.window = Math.max(1, window);
+		this.names = names;
+	}
+
+	/**
+	 * Enables the incremental import: pages with the same size and modification time or the same
+	 * content as in the manifest aren't parsed, and rows with the same hash aren't written. If the
+	 * parser or the names changed, all pages are parsed. Rows that disappeared since the last run are
+	 * deleted. The manifest is saved after all rows were written. The writer should replace existing
+	 * rows.
+	 * 
+	 * @param manifest manifest of the last run.
+	 */
+	public void setManifest(SchiffInfoManifest manifest) {
+		this.manifest = manifest;
+	}
+
+	/**
+	 * Reads all pages and writes the ship_types and ships_baubar inserts.
+	 */
+	public void run() {
+		File[] files = directory.listFiles((dir, name) -> name.matches("\\d+\\.html"));
+		if (files == null) {
+			System.out.println("Failed to read SchiffInfo files: " + directory + " is not a directory");
+			return;
+		}
+		Arrays.sort(files, Comparator.comparingInt(SchiffInfoImport::getId));
+		List<Integer> deletedShipTypes = new ArrayList<>();
+		List<Integer> deletedShipBaubar = new ArrayList<>();
+		if (manifest != null) {
+			Set<String> names = new HashSet<>();
+			for (File file : files) {
+				names.add(file.getName());
+			}
+			for (String name : manifest.getPreviousNames()) {
+				if (!names.contains(name)) {
+					deletedShipTypes.add(getId(new File(name)));
+					if (manifest.hadShipBaubar(name)) {
+						deletedShipBaubar.add(getId(new File(name)));
+					}
+				}
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Deque<Future<Page>> pending = new ArrayDeque<>();
+		Deque<File> pendingFiles = new ArrayDeque<>();
+		DBWriter.TableWriter ships = null;
+		DBWriter.TableWriter bau = null;
+		boolean complete = false;
+		int unchanged = 0;
+		int next = 0;
+		try {
+			// TODO: Einwegwerft Impulsor
+			while (next < files.length || !pending.isEmpty()) {
+				while (next < files.length && pending.size() < window) {
+					File file = files[next++];
+					pending.add(executor.submit(() -> readFile(file)));
+					pendingFiles.add(file);
+				}
+				Page page;
+				File file = pendingFiles.poll();
+				try {
+					page = pending.poll().get();
+				} catch (ExecutionException ex) {
+					System.out.println("Failed to read SchiffInfo file " + file + ": " + ex.getCause());
+					if (manifest != null) {
+						manifest.retry(file.getName());
+					}
+					continue;
+				}
+				if (manifest != null) {
+					manifest.put(file.getName(), page.entry);
+				}
+				if (page.sip == null) {
+					unchanged++;
+					continue;
+				}
+				DS2DBInfo shipType = (DS2DBInfo) page.sip.getShipType();
+				if (page.previous == null || page.previous.getShipTypeHash() != page.entry.getShipTypeHash()) {
+					if (ships == null) {
+						ships = writer.openTable(shipType);
+					}
+					ships.write(shipType);
+				}
+
+				// Could take ShipBaubar from module=werft with correct IDs and npc ships.
+				// But that would be without res or race info
+				if (page.sip.getShipBaubar().getDauer() <= 0) {
+					if (manifest != null && manifest.hadShipBaubar(file.getName())) {
+						deletedShipBaubar.add(getId(file));
+					}
+				} else if ((page.previous == null
+						|| page.previous.getShipBaubarHash() != page.entry.getShipBaubarHash())) {
+					DS2DBInfo shipBaubar = (DS2DBInfo) page.sip.getShipBaubar();
+					if (bau == null) {
+						bau = writer.openTable(shipBaubar);
+					}
+					bau.write(shipBaubar);
+				}
+			}
+			complete = true;
+		} catch (IOException ex) {
+			System.out.println("Can't write to file: " + ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			complete &= close(ships);
+			complete &= close(bau);
+		}
+		if (complete) {
+			// ships_baubar.type references ship_types.id.
+			complete = delete("ships_baubar", deletedShipBaubar) && delete("ship_types", deletedShipTypes);
+		}
+		if (ships == null && bau == null && deletedShipTypes.isEmpty() && deletedShipBaubar.isEmpty()) {
+			System.out.println("Nothing to write.");
+		}
+		if (manifest != null) {
+			System.out.println("Unchanged SchiffInfo pages: " + unchanged + " of " + files.length);
+			if (complete) {
+				try {
+					manifest.save();
+				} catch (IOException ex) {
+					System.out.println("Can't write manifest: " + ex);
+				}
+			}
+		}
+	}
+
+	private static int getId(File file) {
+		String name = file.getName();
+		return Integer.parseInt(name.substring(0, name.length() - ".html".length()));
+	}
+
+	/**
+	 * Parses the page, unless the manifest says it didn't change.
+	 */
+	private Page readFile(File file) throws IOException {
+		if (manifest == null) {
+			SchiffInfoProcessor sip = new SchiffInfoProcessor(names);
+			sip.readPage(sources.get().open(file), getId(file));
+			return new Page(null, null, sip);
+		}
+
+		SchiffInfoManifest.Entry previous = manifest.getPrevious(file.getName());
+		long size = file.length();
+		long lastModified = file.lastModified();
+		if (previous != null && previous.isUnchanged(size, lastModified)) {
+			return new Page(previous, previous, null);
+		}
+		PageSource source = sources.get();
+		ByteBuffer content = source.read(file);
+		String contentHash = SchiffInfoManifest.hashContent(content);
+		if (previous != null && previous.getContentHash().equals(contentHash)) {
+			return new Page(previous, previous.touch(size, lastModified), null);
+		}
+		SchiffInfoProcessor sip = new SchiffInfoProcessor(names);
+		sip.readPage(source.decode(content), getId(file));
+		long shipTypeHash = SchiffInfoManifest.hashRow((DS2DBInfo) sip.getShipType());
+		long shipBaubarHash = sip.getShipBaubar().getDauer() > 0
+				? SchiffInfoManifest.hashRow((DS2DBInfo) sip.getShipBaubar()) : 0;
+		return new Page(previous, new SchiffInfoManifest.Entry(size, lastModified, contentHash, shipTypeHash,
+				shipBaubarHash), sip);
+	}
+
+	/**
+	 * @return true if the rows were deleted without errors.
+	 */
+	private boolean delete(String table, List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return true;
+		}
+		System.out.println("Deleting " + table + " rows: " + ids.size());
+		try {
+			writer.deleteRows(table, ids);
+			return true;
+		} catch (IOException ex) {
+			System.out.println("Can't delete rows: " + ex);
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if the writer was closed without errors.
+	 */
+	private static boolean close(DBWriter.TableWriter tableWriter) {
+		if (tableWriter == null) {
+			return true;
+		}
+		try {
+			tableWriter.close();
+			return true;
+		} catch (IOException ex) {
+			System.out.println("Can't write to file: " + ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Result of reading one page.
+	 */
+	private static class Page {
+		/** Entry of the last run or null. */
+		private final SchiffInfoManifest.Entry previous;
+		/** Entry for the next run or null without manifest. */
+		private final SchiffInfoManifest.Entry entry;
+		/** Parsed page or null, if it didn't change. */
+		private final SchiffInfoProcessor sip;
+
+		private Page(SchiffInfoManifest.Entry previous, SchiffInfoManifest.Entry entry, SchiffInfoProcessor sip) {
+			this.previous = previous;
+			this.entry = entry;
+			this.sip = sip;
+		}
+	}
+}
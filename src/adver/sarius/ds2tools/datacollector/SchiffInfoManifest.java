@@ -0,0 +1,324 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Remembers for every SchiffInfo page what was imported last time, so only changed pages have to
+ * be parsed and only changed rows have to be written.
+ * <p>
+ * The file starts with a header line with the fingerprint of the parser and the names, see
+ * {@link #getFingerprint(SchiffInfoNames)}. Then there is one tab separated line per page: file name,
+ * size, last modified, SHA-1 of the content and a hash of the written ship_types and ships_baubar
+ * rows. If the fingerprint changed, the pages would produce different rows, so the entries aren't
+ * used to skip pages. They are still used to find rows that have to be deleted.
+ */
+public class SchiffInfoManifest {
+
+	/**
+	 * State of one page.
+	 */
+	public static class Entry {
+		private final long size;
+		private final long lastModified;
+		private final String contentHash;
+		private final long shipTypeHash;
+		private final long shipBaubarHash;
+
+		/**
+		 * @param size size of the file.
+		 * @param lastModified last modification of the file.
+		 * @param contentHash hash of the file content, see {@link SchiffInfoManifest#hashContent(ByteBuffer)}.
+		 * @param shipTypeHash hash of the ship type row, see {@link SchiffInfoManifest#hashRow(DS2DBInfo)}.
+		 * @param shipBaubarHash hash of the ship baubar row, or 0 if there is none.
+		 */
+		public Entry(long size, long lastModified, String contentHash, long shipTypeHash, long shipBaubarHash) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.contentHash = contentHash;
+			this.shipTypeHash = shipTypeHash;
+			this.shipBaubarHash = shipBaubarHash;
+		}
+
+		/**
+		 * @return true if size and modification time of the file are the same as before.
+		 */
+		public boolean isUnchanged(long size, long lastModified) {
+			return this.size == size && this.lastModified == lastModified;
+		}
+
+		public String getContentHash() {
+			return contentHash;
+		}
+
+		public long getShipTypeHash() {
+			return shipTypeHash;
+		}
+
+		public long getShipBaubarHash() {
+			return shipBaubarHash;
+		}
+
+		/**
+		 * @return same hashes with new size and modification time.
+		 */
+		public Entry touch(long size, long lastModified) {
+			return new Entry(size, lastModified, contentHash, shipTypeHash, shipBaubarHash);
+		}
+	}
+
+	/** Start of the header line. */
+	private static final String HEADER = "#schiffinfo\t";
+
+	private final File file;
+	private final String fingerprint;
+	/** Entries of the last run, only read. */
+	private final Map<String, Entry> previous;
+	/** True if the entries of the last run were made with another parser or other names. */
+	private final boolean stale;
+	/** Entries of this run, replace the previous ones on {@link #save()}. */
+	private final Map<String, Entry> current = new TreeMap<>();
+
+	private SchiffInfoManifest(File file, String fingerprint, Map<String, Entry> previous, boolean stale) {
+		this.file = file;
+		this.fingerprint = fingerprint;
+		this.previous = previous;
+		this.stale = stale;
+	}
+
+	/**
+	 * @param names names used to parse the pages.
+	 * @return fingerprint of everything besides the page content that changes the rows.
+	 */
+	public static String getFingerprint(SchiffInfoNames names) {
+		return SchiffInfoProcessor.PARSER_VERSION + "-" + names.getFingerprint();
+	}
+
+	/**
+	 * @param file the manifest file, written on {@link #save()}.
+	 * @param fingerprint fingerprint of this run, see {@link #getFingerprint(SchiffInfoNames)}.
+	 * @return a manifest without entries, every page counts as changed.
+	 */
+	public static SchiffInfoManifest empty(File file, String fingerprint) {
+		return new SchiffInfoManifest(file, fingerprint, new HashMap<>(), false);
+	}
+
+	/**
+	 * Reads the manifest. If the file doesn't exist yet, the manifest is empty and every page counts
+	 * as changed.
+	 * 
+	 * @param file the manifest file.
+	 * @param fingerprint fingerprint of this run, see {@link #getFingerprint(SchiffInfoNames)}.
+	 * @return the manifest of the last run.
+	 * @throws IOException if the file exists but can't be read.
+	 */
+	public static SchiffInfoManifest load(File file, String fingerprint) throws IOException {
+		Map<String, Entry> entries = new HashMap<>();
+		boolean stale = false;
+		if (file.isFile()) {
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				String line = reader.readLine();
+				stale = line == null || !line.equals(HEADER + fingerprint);
+				if (line != null && !line.startsWith(HEADER)) {
+					// Manifest without header, from before the fingerprint existed.
+					putEntry(entries, line);
+				}
+				while ((line = reader.readLine()) != null) {
+					putEntry(entries, line);
+				}
+			} catch (NumberFormatException ex) {
+				throw new IOException("Invalid manifest: " + ex.getMessage(), ex);
+			}
+		}
+		if (stale) {
+			System.out.println("SchiffInfo parser or names changed, importing all pages.");
+		}
+		return new SchiffInfoManifest(file, fingerprint, entries, stale);
+	}
+
+	private static void putEntry(Map<String, Entry> entries, String line) throws IOException {
+		String[] parts = line.split("\t");
+		if (parts.length != 6) {
+			throw new IOException("Invalid manifest line: " + line);
+		}
+		entries.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3],
+				Long.parseUnsignedLong(parts[4], 16), Long.parseUnsignedLong(parts[5], 16)));
+	}
+
+	/**
+	 * @param name file name of the page.
+	 * @return the entry of the last run or null, also if the parser or the names changed since. Can be
+	 *         called from several threads.
+	 */
+	public Entry getPrevious(String name) {
+		return stale ? null : previous.get(name);
+	}
+
+	/**
+	 * @return file names of all pages of the last run, even if the parser or the names changed since.
+	 */
+	public Set<String> getPreviousNames() {
+		return Collections.unmodifiableSet(previous.keySet());
+	}
+
+	/**
+	 * @param name file name of the page.
+	 * @return true if a ships_baubar row was written for the page in the last run, even if the parser
+	 *         or the names changed since.
+	 */
+	public boolean hadShipBaubar(String name) {
+		Entry entry = previous.get(name);
+		return entry != null && entry.shipBaubarHash != 0;
+	}
+
+	/**
+	 * Sets the state of a page for the next run. Pages without an entry are parsed again next time.
+	 * 
+	 * @param name file name of the page.
+	 * @param entry the current state.
+	 */
+	public void put(String name, Entry entry) {
+		current.put(name, entry);
+	}
+
+	/**
+	 * Keeps the entry of the last run for a page that couldn't be read. Its rows are still known for
+	 * deleting them later, but the page is parsed again next time.
+	 * 
+	 * @param name file name of the page.
+	 */
+	public void retry(String name) {
+		Entry entry = previous.get(name);
+		if (entry != null) {
+			current.put(name, new Entry(-1, -1, "", entry.shipTypeHash, entry.shipBaubarHash));
+		}
+	}
+
+	/**
+	 * Replaces the file with the entries of this run. Pages that weren't put are dropped.
+	 * 
+	 * @throws IOException if the file can't be written.
+	 */
+	public void save() throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(HEADER + fingerprint);
+			writer.newLine();
+			for (Map.Entry<String, Entry> e : current.entrySet()) {
+				Entry entry = e.getValue();
+				writer.write(e.getKey() + "\t" + entry.size + "\t" + entry.lastModified + "\t" + entry.contentHash + "\t"
+						+ Long.toHexString(entry.shipTypeHash) + "\t" + Long.toHexString(entry.shipBaubarHash));
+				writer.newLine();
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * @param content the content from position to limit. The position isn't changed.
+	 * @return SHA-1 of the content as hex string.
+	 */
+	public static String hashContent(ByteBuffer content) {
+		try {
+			MessageDigest sha = MessageDigest.getInstance("SHA-1");
+			sha.update(content.duplicate());
+			byte[] digest = sha.digest();
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @return 64 bit FNV-1a hash over all values of the row. Never 0.
+	 */
+	public static long hashRow(DS2DBInfo info) throws IOException {
+		RowHash hash = new RowHash();
+		info.writeDBValues(hash);
+		return hash.hash != 0 ? hash.hash : 1;
+	}
+
+	/**
+	 * Hashes the values with their type, so that e.g. the int 1 and the string "1" differ.
+	 */
+	private static class RowHash implements RowSink {
+		private long hash = 0xcbf29ce484222325L;
+
+		private void add(long value) {
+			for (int i = 0; i < 8; i++) {
+				hash ^= value & 0xff;
+				hash *= 0x100000001b3L;
+				value >>>= 8;
+			}
+		}
+
+		@Override
+		public void writeInt(int value) {
+			add('I');
+			add(value);
+		}
+
+		@Override
+		public void writeLong(long value) {
+			add('J');
+			add(value);
+		}
+
+		@Override
+		public void writeDouble(double value) {
+			add('D');
+			add(Double.doubleToLongBits(value));
+		}
+
+		@Override
+		public void writeBoolean(boolean value) {
+			add('Z');
+			add(value ? 1 : 0);
+		}
+
+		@Override
+		public void writeString(CharSequence value) {
+			if (value == null) {
+				writeNull();
+				return;
+			}
+			add('S');
+			add(value.length());
+			for (int i = 0; i < value.length(); i++) {
+				add(value.charAt(i));
+			}
+		}
+
+		@Override
+		public void writeNull() {
+			add('N');
+		}
+
+		@Override
+		public void writeObject(Object value) {
+			if (value == null) {
+				writeNull();
+			} else {
+				add('O');
+				writeString(value.toString());
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package adver.sarius.ds2tools.datacollector;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import net.driftingsouls.ds2.server.entities.Weapon.Flags;
+import net.driftingsouls.ds2.server.ships.ShipClasses;
+import net.driftingsouls.ds2.server.ships.ShipTypeFlag;
+
+/**
+ * Immutable lookup of the names used on the SchiffInfo pages: ship classes, ship flags, races and
+ * weapon flags. All lookups are hash lookups.
+ * <p>
+ * The default names are built once. More names can be added with {@link #extend(Properties)}
+ * without changing the code. Keys are of the form:
+ * <pre>
+ * race.&lt;name&gt;=&lt;race id&gt;
+ * shipclass.&lt;singular or plural&gt;=&lt;ShipClasses constant&gt;
+ * shipflag.&lt;label or description&gt;=&lt;ShipTypeFlag constant&gt;
+ * weaponflag.&lt;description&gt;=&lt;Weapon.Flags constant&gt;
+ * </pre>
+ * Spaces in names have to be escaped with a backslash in the properties file.
+ */
+public final class SchiffInfoNames {
+
+	private static final SchiffInfoNames DEFAULT = createDefault();
+
+	private final Map<String, ShipClasses> shipClasses;
+	private final Map<String, ShipTypeFlag> shipFlags;
+	private final Map<String, Integer> races;
+	private final Map<String, Flags> weaponFlags;
+
+	private SchiffInfoNames(Map<String, ShipClasses> shipClasses, Map<String, ShipTypeFlag> shipFlags,
+			Map<String, Integer> races, Map<String, Flags> weaponFlags) {
+		this.shipClasses = Collections.unmodifiableMap(shipClasses);
+		this.shipFlags = Collections.unmodifiableMap(shipFlags);
+		this.races = Collections.unmodifiableMap(races);
+		this.weaponFlags = Collections.unmodifiableMap(weaponFlags);
+	}
+
+	/**
+	 * @return the names known to DS2.
+	 */
+	public static SchiffInfoNames getDefault() {
+		return DEFAULT;
+	}
+
+	private static SchiffInfoNames createDefault() {
+		Map<String, ShipClasses> shipClasses = new HashMap<>();
+		for (ShipClasses s : ShipClasses.values()) {
+			shipClasses.putIfAbsent(s.getSingular(), s);
+			shipClasses.putIfAbsent(s.getPlural(), s);
+		}
+		Map<String, ShipTypeFlag> shipFlags = new HashMap<>();
+		for (ShipTypeFlag flag : ShipTypeFlag.values()) {
+			shipFlags.putIfAbsent(flag.getLabel(), flag);
+			shipFlags.putIfAbsent(flag.getDescription(), flag);
+		}
+		Map<String, Integer> races = new HashMap<>();
+		races.put("GCP", 0);
+		races.put("Terraner", 1);
+		races.put("Vasudaner", 2);
+		races.put("Shivaner", 3);
+		races.put("Uralte", 4);
+		races.put("Nomads", 5);
+		races.put("NTF", 6);
+		races.put("HoL", 7);
+		races.put("GTU", 8);
+		races.put("Piraten", 9);
+		Map<String, Flags> weaponFlags = new HashMap<>();
+		weaponFlags.put("Beim Angriff zerstört", Flags.DESTROY_AFTER);
+		weaponFlags.put("Große Reichweite", Flags.LONG_RANGE);
+		weaponFlags.put("Sehr große Reichweite", Flags.VERY_LONG_RANGE);
+		return new SchiffInfoNames(shipClasses, shipFlags, races, weaponFlags);
+	}
+
+	/**
+	 * Creates a copy with additional names. Existing names are replaced. Invalid entries are
+	 * reported and skipped.
+	 * 
+	 * @param properties additional names, see the class description for the keys.
+	 * @return the extended names. This object isn't changed.
+	 */
+	public SchiffInfoNames extend(Properties properties) {
+		Map<String, ShipClasses> shipClasses = new HashMap<>(this.shipClasses);
+		Map<String, ShipTypeFlag> shipFlags = new HashMap<>(this.shipFlags);
+		Map<String, Integer> races = new HashMap<>(this.races);
+		Map<String, Flags> weaponFlags = new HashMap<>(this.weaponFlags);
+		for (String key : properties.stringPropertyNames()) {
+			String value = properties.getProperty(key).trim();
+			try {
+				if (key.startsWith("race.")) {
+					races.put(key.substring("race.".length()), Integer.parseInt(value));
+				} else if (key.startsWith("shipclass.")) {
+					shipClasses.put(key.substring("shipclass.".length()), ShipClasses.valueOf(value));
+				} else if (key.startsWith("shipflag.")) {
+					shipFlags.put(key.substring("shipflag.".length()), ShipTypeFlag.valueOf(value));
+				} else if (key.startsWith("weaponflag.")) {
+					weaponFlags.put(key.substring("weaponflag.".length()), Flags.valueOf(value));
+				} else {
+					System.out.println("Unknown SchiffInfo name: " + key);
+				}
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Invalid SchiffInfo name " + key + ": " + ex);
+			}
+		}
+		return new SchiffInfoNames(shipClasses, shipFlags, races, weaponFlags);
+	}
+
+	/**
+	 * @return SHA-1 over all names and their values as hex string. Equal for equal names, no matter
+	 *         whether they are defaults or were added with {@link #extend(Properties)}.
+	 */
+	public String getFingerprint() {
+		Map<String, Object> sorted = new TreeMap<>();
+		shipClasses.forEach((name, value) -> sorted.put("shipclass." + name, value.name()));
+		shipFlags.forEach((name, value) -> sorted.put("shipflag." + name, value.name()));
+		races.forEach((name, value) -> sorted.put("race." + name, value));
+		weaponFlags.forEach((name, value) -> sorted.put("weaponflag." + name, value.name()));
+		try {
+			MessageDigest sha = MessageDigest.getInstance("SHA-1");
+			for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+				sha.update((entry.getKey() + "=" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			StringBuilder hex = new StringBuilder(40);
+			for (byte b : sha.digest()) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @param name singular or plural of the ShipClass.
+	 * @return found ShipClass or null.
+	 */
+	public ShipClasses getShipClass(String name) {
+		return shipClasses.get(name);
+	}
+
+	/**
+	 * @param name name or description of the flag.
+	 * @return matching flag or null.
+	 */
+	public ShipTypeFlag getShipFlag(String name) {
+		return shipFlags.get(name);
+	}
+
+	/**
+	 * @param name name of the race.
+	 * @return int value of the race, or -1 if not found.
+	 */
+	public int getRace(String name) {
+		return races.getOrDefault(name, -1);
+	}
+
+	/**
+	 * @param description description of the flag.
+	 * @return Flags matching the description, or null.
+	 */
+	public Flags getWeaponFlag(String description) {
+		return weaponFlags.get(description);
+	}
+}
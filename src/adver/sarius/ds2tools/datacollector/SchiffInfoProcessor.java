@@ -1,10 +1,11 @@
 package adver.sarius.ds2tools.datacollector;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ObjIntConsumer;
 
 import adver.sarius.ds2tools.extended.ForschungExt;
 import adver.sarius.ds2tools.extended.ShipBaubarExt;
@@ -29,9 +30,29 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 	// Modulslots
 	
 
+	/**
+	 * Version of the parser. Increase it whenever a change of the parser changes the rows of pages
+	 * that were already imported, so incremental imports parse all pages again.
+	 */
+	public static final int PARSER_VERSION = 1;
+
 	/** Location of the pictures without the filename */
 	private static final String PICTURE_PATH = "data/dynamicContent/";
 		
+	/** Names of ship classes, flags and races. */
+	private final SchiffInfoNames names;
+
+	public SchiffInfoProcessor() {
+		this(SchiffInfoNames.getDefault());
+	}
+
+	/**
+	 * @param names names of ship classes, flags and races to use.
+	 */
+	public SchiffInfoProcessor(SchiffInfoNames names) {
+		this.names = names;
+	}
+
 	/**
 	 * Get the ShipClasses enum from its name.
 	 * 
@@ -39,12 +60,7 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 	 * @return found ShipClass or null.
 	 */
 	private ShipClasses getShipClass(String shipClassString) {
-		for (ShipClasses s : ShipClasses.values()) {
-			if (s.getSingular().equals(shipClassString) || s.getPlural().equals(shipClassString)) {
-				return s;
-			}
-		}
-		return null;
+		return names.getShipClass(shipClassString);
 	}
 	
 	/**
@@ -64,30 +80,7 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 	 * @return int value of the race, or -1 if not found.
 	 */
 	private int getRace(String race) {
-		switch (race) {
-		case "GCP":
-			return 0;
-		case "Terraner":
-			return 1;
-		case "Vasudaner":
-			return 2;
-		case "Shivaner":
-			return 3;
-		case "Uralte":
-			return 4;
-		case "Nomads":
-			return 5;
-		case "NTF":
-			return 6;
-		case "HoL":
-			return 7;
-		case "GTU":
-			return 8;
-		case "Piraten":
-			return 9;
-		default:
-			return -1;
-		}
+		return names.getRace(race);
 	}
 		
 	/**
@@ -97,12 +90,7 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 	 * @return matching flag or null.
 	 */
 	private ShipTypeFlag getShipFlag(String name) {
-		for (ShipTypeFlag flag : ShipTypeFlag.values()) {
-			if (flag.getLabel().equals(name) || flag.getDescription().equals(name)) {
-				return flag;
-			}
-		}
-		return null;
+		return names.getShipFlag(name);
 	}
 
 	/**
@@ -112,16 +100,7 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 	 * @return Flags matching the description, or null.
 	 */
 	private Flags getWeaponFlag(String desc) {
-		switch (desc) {
-		case "Beim Angriff zerstört":
-			return Flags.DESTROY_AFTER;
-		case "Große Reichweite":
-			return Flags.LONG_RANGE;
-		case "Sehr große Reichweite":
-			return Flags.VERY_LONG_RANGE;
-		default:
-			return null;
-		}
+		return names.getWeaponFlag(desc);
 	}
 
 	/**
@@ -156,226 +135,253 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 		return lastShipBaubar;
 	}
 
+	/** Sections of the page. Each one starts with its header line. */
+	private enum Section {
+		NONE, REAKTOR, VORRAUS, BAU, WAFFEN, ANTRIEB, STAT, MODULE, FLAG, BESCH
+	}
+
+	/** Header lines and the section they start. */
+	private static final Map<String, Section> SECTION_HEADERS = new HashMap<>();
+	static {
+		SECTION_HEADERS.put("<h3>Reaktorwerte</h3>", Section.REAKTOR);
+		SECTION_HEADERS.put("<h3>Vorrausetzungen</h3>", Section.VORRAUS);
+		SECTION_HEADERS.put("<h3>Produktionskosten</h3>", Section.BAU);
+		SECTION_HEADERS.put("<h3>Bewaffnung</h3>", Section.WAFFEN);
+		SECTION_HEADERS.put("<h3>Antrieb</h3>", Section.ANTRIEB);
+		SECTION_HEADERS.put("<h3>Ausstattung</h3>", Section.STAT);
+		SECTION_HEADERS.put("<h1>Modulsteckplätze</h1>", Section.MODULE);
+		SECTION_HEADERS.put("<h3>Beschreibung</h3>", Section.BESCH);
+	}
+
+	/**
+	 * A line "Name: value" outside of any section that sets a single int value of the ShipType.
+	 */
+	private static class ValueLine {
+		/** The line has to start with this. */
+		private final String start;
+		/** Length of {@code start} up to and including the first ':'. */
+		private final int keyLength;
+		/** The line has to contain this too, or null. */
+		private final String contains;
+		private final String prefix;
+		private final String suffix;
+		private final ObjIntConsumer<ShipType> setter;
+
+		private ValueLine(String start, String contains, String prefix, String suffix,
+				ObjIntConsumer<ShipType> setter) {
+			this.start = start;
+			this.keyLength = start.indexOf(':') + 1;
+			this.contains = contains;
+			this.prefix = prefix;
+			this.suffix = suffix;
+			this.setter = setter;
+		}
+
+		private ValueLine(String start, String suffix, ObjIntConsumer<ShipType> setter) {
+			this(start, null, start, suffix, setter);
+		}
+	}
+
+	/**
+	 * Hash table of the {@link ValueLine}s, with the text up to the first ':' as key. Open
+	 * addressing, so a line can be looked up without creating a substring.
+	 */
+	private static final ValueLine[] VALUE_LINES = new ValueLine[32];
+	static {
+		ValueLine[] lines = {
+				new ValueLine("<br>Hüllenstärke: ", null, "Hüllenstärke: ", "<br>", ShipType::setHull),
+				new ValueLine("Ablative Panzerung: ", "<br>", ShipType::setAblativeArmor),
+				new ValueLine("Panzerung:", "<br>", ShipType::setPanzerung),
+				new ValueLine("Schildstärke:", "<br>", ShipType::setShields),
+				new ValueLine("Platz für Einheiten:", "<br>", ShipType::setUnitSpace),
+				new ValueLine("Maximale Einheitengröße:", "<br>", ShipType::setMaxUnitSize),
+				new ValueLine("Nahrungsspeicher:", "<br>", ShipType::setNahrungCargo),
+				new ValueLine("Tanker: <img", null, "Deuterium\">", " für <img", ShipType::setDeutFactor),
+				new ValueLine("Produziert: <img", "alt=\"Nahrung\">", "alt=\"Nahrung\">", "<br>", ShipType::setHydro),
+				new ValueLine("Torpedoabwehr:", "%<br>", ShipType::setTorpedoDef),
+				new ValueLine("Betriebskosten: ", "RE", ShipType::setReCost) };
+		for (ValueLine line : lines) {
+			int i = hashKey(line.start, line.keyLength);
+			while (VALUE_LINES[i] != null) {
+				i = (i + 1) & (VALUE_LINES.length - 1);
+			}
+			VALUE_LINES[i] = line;
+		}
+	}
+
+	private static int hashKey(String line, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + line.charAt(i);
+		}
+		return (hash ^ (hash >>> 16)) & (VALUE_LINES.length - 1);
+	}
+
+	/**
+	 * @param line the line to check.
+	 * @return the ValueLine the line belongs to, or null.
+	 */
+	private static ValueLine getValueLine(String line) {
+		int keyLength = line.indexOf(':') + 1;
+		if (keyLength == 0) {
+			return null;
+		}
+		for (int i = hashKey(line, keyLength); VALUE_LINES[i] != null; i = (i + 1) & (VALUE_LINES.length - 1)) {
+			ValueLine valueLine = VALUE_LINES[i];
+			if (valueLine.keyLength == keyLength && line.startsWith(valueLine.start)) {
+				return valueLine.contains == null || line.contains(valueLine.contains) ? valueLine : null;
+			}
+		}
+		return null;
+	}
+
 	@Override
-	public void readPage(BufferedReader page, int shipId) throws IOException {
+	public void readPage(LineSource page, int shipId) throws IOException {
 		ShipType shipType = new ShipTypeExt(shipId);
 		ShipBaubar shipBaubar = new ShipBaubarExt(shipType);
 
 		String weaponId = "";
 		StringBuilder shipFlags = new StringBuilder();
-		String section = "";
+		StringBuilder descrip = new StringBuilder(shipType.getDescrip());
+		Section section = Section.NONE;
 		String line;
 		while ((line = page.readLine()) != null) {
 			line = line.trim();
 			// TODO: missing: showorderable, showbuildable, Flagschiff
-			if ("".equals(shipType.getNickname())
-					&& line.startsWith("<span style=\"color:#FFFFFF;font-weight:bold;\">")) {
-				shipType.setNickname(subString(line, ">", "</span><br>"));
-			} else if(line.equals("<span class=\"verysmallfont\" style=\"color:red;font-style:italic;font-weight:normal\">unsichtbar</span>")) {
-				shipType.setHide(true);
-			} else if (ShipClasses.UNBEKANNT == shipType.getShipClass()
-					&& line.startsWith("<span class=\"verysmallfont\" style=\"font-style:italic\">")) {
-				shipType.setShipClass(getShipClass(subString(line, ">", "</span><br>")));
-			} else if ("".equals(shipType.getPicture()) && line.startsWith("<img src=\"")
-					&& line.endsWith(" alt=\"\">")) {
-				// TODO: is it always _files ?
-				shipType.setPicture(PICTURE_PATH + subString(line, "_files/", "\" alt=\""));
-			} else if (line.equals("<h3>Reaktorwerte</h3>")) {
-				section = "reaktor";
-			} else if (section.equals("reaktor") && line.endsWith("</td><td class=\"noBorderX\">Uran</td></tr>")) {
-				shipType.setRu(toInt(subString(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img")));
-			} else if (section.equals("reaktor") && line.endsWith("</td><td class=\"noBorderX\">Deuterium</td></tr>")) {
-				shipType.setRd(toInt(subString(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img")));
-			} else if (section.equals("reaktor")
-					&& line.endsWith("</td><td class=\"noBorderX\">Antimaterie</td></tr>")) {
-				shipType.setRa(toInt(subString(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img")));
-			} else if (section.equals("reaktor") && line.endsWith("</td><td class=\"noBorderX\">maximal</td></tr>")) {
-				shipType.setRm(toInt(subString(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img")));
-				section = "";
-			} else if (line.equals("<h3>Vorrausetzungen</h3>")) {
-				section = "vorraus";
-			} else if (section.equals("vorraus") && (
-					line.startsWith("<a class=\"ok\" href=\"https://ds2.drifting-souls.net/ds?module=forschinfo&amp;action=default&amp;res=")
-					|| line.startsWith("<a class=\"error\" href=\"https://ds2.drifting-souls.net/ds?module=forschinfo&amp;action=default&amp;res="))) {
-				Forschung res = getForschung(toInt(subString(line,
-						"href=\"https://ds2.drifting-souls.net/ds?module=forschinfo&amp;action=default&amp;res=",
-						"\">")));
-				res.setName(subString(line, "\">", "</a><br>"));
-				if (shipBaubar.getRes(1) == null) {
-					shipBaubar.setRes1(res);
-				} else if (shipBaubar.getRes(2) == null) {
-					shipBaubar.setRes2(res);
-				} else if (shipBaubar.getRes(3) == null) {
-					shipBaubar.setRes3(res);
-				} else {
-					unknownLine(line);
+			if (readHeadLine(line, shipType)) {
+				continue;
+			}
+			Section header = SECTION_HEADERS.get(line);
+			// The description header is ignored inside of a flag, like every other line there.
+			if (header != null && !(header == Section.BESCH && section == Section.FLAG)) {
+				section = header;
+				continue;
+			}
+			switch (section) {
+			case REAKTOR:
+				if (line.endsWith("</td><td class=\"noBorderX\">Uran</td></tr>")) {
+					shipType.setRu(toInt(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img"));
+					continue;
+				} else if (line.endsWith("</td><td class=\"noBorderX\">Deuterium</td></tr>")) {
+					shipType.setRd(toInt(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img"));
+					continue;
+				} else if (line.endsWith("</td><td class=\"noBorderX\">Antimaterie</td></tr>")) {
+					shipType.setRa(toInt(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img"));
+					continue;
+				} else if (line.endsWith("</td><td class=\"noBorderX\">maximal</td></tr>")) {
+					shipType.setRm(toInt(line, "<tr><td class=\"noBorderX\">", "</td><td class=\"noBorderX\"><img"));
+					section = Section.NONE;
+					continue;
 				}
-			} else if (section.equals("vorraus") && line.startsWith("Rasse: ")) {
-				shipBaubar.setRace(getRace(subString(line, "Rasse: ", "<br>")));
-				section = "";
-			} else if (line.equals("<h3>Produktionskosten</h3>")) {
-				section = "bau";
-			} else if (section.equals("bau") && line.startsWith("<td class=\"noBorderX\" align=\"left\"><img src=")) {
-				Cargo costs = shipBaubar.getCosts();
-				if (costs == null) {
-					costs = new Cargo();
+				break;
+			case VORRAUS:
+				if (line.startsWith("<a class=\"ok\" href=\"https://ds2.drifting-souls.net/ds?module=forschinfo&amp;action=default&amp;res=")
+						|| line.startsWith("<a class=\"error\" href=\"https://ds2.drifting-souls.net/ds?module=forschinfo&amp;action=default&amp;res=")) {
+					Forschung res = getForschung(toInt(line,
+							"href=\"https://ds2.drifting-souls.net/ds?module=forschinfo&amp;action=default&amp;res=",
+							"\">"));
+					res.setName(subString(line, "\">", "</a><br>"));
+					if (shipBaubar.getRes(1) == null) {
+						shipBaubar.setRes1(res);
+					} else if (shipBaubar.getRes(2) == null) {
+						shipBaubar.setRes2(res);
+					} else if (shipBaubar.getRes(3) == null) {
+						shipBaubar.setRes3(res);
+					} else {
+						unknownLine(line);
+					}
+					continue;
+				} else if (line.startsWith("Rasse: ")) {
+					shipBaubar.setRace(getRace(subString(line, "Rasse: ", "<br>")));
+					section = Section.NONE;
+					continue;
 				}
-				String sub = subString(line, "<a class=\"tooltip forschinfo\"", null);
-				int count = toInt(subString(sub, "\">", "<span class="));
-				costs.addResource(ItemID.fromString(subString(sub, "ds-item-id=\"", "\"><img src=")), count);
-				shipBaubar.setCosts(costs);
-			} else if (section.equals("bau") && line.startsWith("<tr><td class=\"noBorderX\">Energie</td>")) {
-				shipBaubar.setEKosten(toInt(subString(line, "alt=\"\">", "</td></tr>")));
-			} else if (section.equals("bau") && line.startsWith("<tr><td class=\"noBorderX\">Besatzung</td>")) {
-				shipBaubar.setCrew(toInt(subString(line, "alt=\"\">", "</td></tr>")));
-			} else if (section.equals("bau") && line.startsWith("<tr><td class=\"noBorderX\">Dauer</td>")) {
-				shipBaubar.setDauer(toInt(subString(line, "alt=\"\">", "</td></tr>")));
-			} else if (section.equals("bau") && line.startsWith("<tr><td class=\"noBorderX\">Werftslots</td>")) {
-				shipBaubar.setWerftSlots(toInt(subString(line, "alt=\"\">", "</td></tr>")));
-				section = "";
-			} else if (line.equals("<h3>Bewaffnung</h3>")) {
-				section = "waffen";
-			} else if (section.equals("waffen") && line.length() > 1 && !line.startsWith("<")) {
-				weaponId = getWeaponId(line);
-			} else if (section.equals("waffen") && line.startsWith("<span style=")) {
-				// TODO: save all known weapons somewhere
-				Weapon weapon = new Weapon(weaponId); 
-				String sub = subString(line, "'\">", null);
-				if (sub.startsWith("AP-Kosten:")) {
-					weapon.setApCost(toInt(subString(sub, "AP-Kosten:", "<br>")));
-					sub = subString(sub, "<br>", null);
+				break;
+			case BAU:
+				if (readBauLine(line, shipBaubar)) {
+					if (line.startsWith("<tr><td class=\"noBorderX\">Werftslots</td>")) {
+						section = Section.NONE;
+					}
+					continue;
 				}
-				if (sub.startsWith("Energie-Kosten:")) {
-					weapon.setECost(toInt(subString(sub, "Energie-Kosten:", "<br>")));
-					sub = subString(sub, "<br>", null);
+				break;
+			case WAFFEN:
+				if (line.length() > 1 && !line.startsWith("<")) {
+					weaponId = getWeaponId(line);
+					continue;
+				} else if (line.startsWith("<span style=")) {
+					readWeapon(line, weaponId, shipType);
+					continue;
+				} else if (line.startsWith("<td class=\"noBorderX\">")) {
+					Map<String, Integer> weapons = shipType.getWeapons();
+					weapons.put(weaponId, toInt(line, "<td class=\"noBorderX\">", "</td>"));
+					shipType.setWeapons(weapons);
+					continue;
+				} else if (line.equals("</tbody></table>") || line.equals("<tbody><tr><td class=\"noBorderX\">-keine-</td></tr>")) {
+					section = Section.NONE;
+					continue;
 				}
-				if (sub.startsWith("Schüsse:")) {
-					weapon.setSingleShots(toInt(subString(sub, "Schüsse:", "<br>")));
-					sub = subString(sub, "<br>", null);
+				break;
+			case ANTRIEB:
+				if (line.contains("Flugkosten<br>")) {
+					shipType.setCost(toInt(line, null, " Flugkosten<br>"));
+					shipType.setHeat(toInt(line, "<br>", " Überhitzung<br><br>"));
+					continue;
+				} else if (line.startsWith("Größe/Beweglichkeit:")) {
+					shipType.setSize(toInt(line, "Größe/Beweglichkeit:", "<br>"));
+					continue;
+				} else if (line.startsWith("Sensorreichweite:")) {
+					shipType.setSensorRange(toInt(line, "Sensorreichweite:", "<br><br>") - 1);
+					continue;
 				}
-				if (sub.startsWith("Max. Überhitzung:")) {
-					Map<String, Integer> heat = shipType.getMaxHeat();
-					heat.put(weapon.getId(), toInt(subString(sub, "Max. Überhitzung:", "<br>")));
-					shipType.setMaxHeat(heat);
-					sub = subString(sub, "<br>", null);
+				break;
+			case STAT:
+				if (line.contains("Energiespeicher<br>")) {
+					shipType.setEps(toInt(line, null, "Energiespeicher<br>"));
+					shipType.setCargo(toInt(line, "Energiespeicher<br>", "Cargo<br>"));
+					shipType.setCrew(toInt(line, "Cargo<br>", "Kabinen<br>"));
+					section = Section.NONE;
+					continue;
 				}
-				if (sub.startsWith("Schaden (H/S/Sub):")) {
-					if (sub.startsWith("Schaden (H/S/Sub): Munition")) {
-						Set<String> muni = weapon.getMunitionstypen();
-						muni.add("TODO:");
-						weapon.setMunitionstypen(muni);
-					} else {
-						sub = subString(sub, "Schaden (H/S/Sub):", null);
-						weapon.setBaseDamage(toInt(subString(sub, null, "/")));
-						sub = subString(sub, "/", null);
-						weapon.setShieldDamage(toInt(subString(sub, null, "/")));
-						weapon.setSubDamage(toInt(subString(sub, "/", "<br>")));
+				break;
+			default:
+				break;
+			}
+
+			if (line.endsWith("Jägerdocks<br>")) {
+				shipType.setJDocks(toInt(line, null, "Jägerdocks<br>"));
+			} else if (line.startsWith("Externe Dockinganlage (Kapazität:")) {
+				shipType.setADocks(toInt(line, "Externe Dockinganlage (Kapazität:", ")<br>"));
+			} else if (section == Section.MODULE && line.contains("<br>")) {
+				shipType.setModules(readModules(line));
+				section = Section.NONE;
+			} else if (line.endsWith("Werftslots<br>")) {
+				shipType.setWerft(toInt(line, null, "Werftslots<br>"));
+			} else {
+				ValueLine valueLine = getValueLine(line);
+				ShipTypeFlag flag;
+				if (valueLine != null) {
+					valueLine.setter.accept(shipType, toInt(line, valueLine.prefix, valueLine.suffix));
+				} else if ((flag = getShipFlag(line)) != null) {
+					section = Section.FLAG;
+					shipFlags.append(flag.getFlag()).append(" ");
+				} else if (section == Section.FLAG) {
+					// TODO: reliable to ignore !only! flag description?
+					if (line.equals("</span>")) {
+						section = Section.NONE;
 					}
-					sub = subString(sub, "<br>", null);
-				}
-				if (sub.startsWith("Trefferws (C/J/Torp):")) {
-					if (sub.startsWith("Trefferws (C/J/Torp): Munition")) {
-						Set<String> muni = weapon.getMunitionstypen();
-						muni.add("TODO:");
-						weapon.setMunitionstypen(muni);
+				} else if (section == Section.BESCH) {
+					if (line.equals("</td>")) {
+						section = Section.NONE;
 					} else {
-						sub = subString(sub, "Trefferws (C/J/Torp):", null);
-						weapon.setDefTrefferWS(toInt(subString(sub, null, "/")));
-						sub = subString(sub, "/", null);
-						weapon.setDefSmallTrefferWS(toInt(subString(sub, null, "/")));
-						weapon.setTorpTrefferWS(Double.parseDouble(subString(sub, "/", "<br>")));
+						descrip.append(line).append(' ');
 					}
-					sub = subString(sub, "<br>", null);
-				}
-
-				while (!sub.equals("</span>")) {
-					Set<Flags> flags = weapon.getFlags();
-					flags.add(getWeaponFlag(subString(sub, null, "<br>")));
-					weapon.setFlags(flags);
-					sub = subString(sub, "<br>", null);
-				}
-			} else if (section.equals("waffen") && line.startsWith("<td class=\"noBorderX\">")) {
-				Map<String, Integer> weapons = shipType.getWeapons();
-				weapons.put(weaponId, toInt(subString(line, "<td class=\"noBorderX\">", "</td>")));
-				shipType.setWeapons(weapons);
-			} else if (section.equals("waffen") && (line.equals("</tbody></table>") || line.equals("<tbody><tr><td class=\"noBorderX\">-keine-</td></tr>"))) {
-				section = "";
-			} else if (line.equals("<h3>Antrieb</h3>")) {
-				section = "antrieb";
-			} else if (section.equals("antrieb") && line.contains("Flugkosten<br>")) {
-				shipType.setCost(toInt(subString(line, null, " Flugkosten<br>")));
-				shipType.setHeat(toInt(subString(line, "<br>", " Überhitzung<br><br>")));
-			} else if (section.equals("antrieb") && line.startsWith("Größe/Beweglichkeit:")) {
-				shipType.setSize(toInt(subString(line, "Größe/Beweglichkeit:", "<br>")));
-			} else if (section.equals("antrieb") && line.startsWith("Sensorreichweite:")) {
-				shipType.setSensorRange(toInt(subString(line, "Sensorreichweite:", "<br><br>")) - 1);
-			} else if (line.equals("<h3>Ausstattung</h3>")) {
-				section = "stat";
-			} else if (section.equalsIgnoreCase("stat") && line.contains("Energiespeicher<br>")) {
-				shipType.setEps(toInt(subString(line, null, "Energiespeicher<br>")));
-				shipType.setCargo(toInt(subString(line, "Energiespeicher<br>", "Cargo<br>")));
-				shipType.setCrew(toInt(subString(line, "Cargo<br>", "Kabinen<br>")));
-				section = "";
-			} else if (line.endsWith("Jägerdocks<br>")) {
-				shipType.setJDocks(toInt(subString(line, null, "Jägerdocks<br>")));
-			} else if(line.startsWith("Externe Dockinganlage (Kapazität:")){
-				shipType.setADocks(toInt(subString(line, "Externe Dockinganlage (Kapazität:", ")<br>")));
-			} else if (line.equals("<h1>Modulsteckplätze</h1>")) {
-				section = "module";
-			} else if (section.equals("module") && line.contains("<br>")) {
-				String sub = line;
-				int counter = 1;
-				StringBuilder modules = new StringBuilder();
-				while (sub.contains("<br>")) {
-					modules.append(counter).append(":");
-					modules.append(getModuleId(subString(sub, null, "<br>"))).append(";");
-					sub = subString(sub, "<br>", null);
-					counter++;
+				} else {
+					unknownLine(line);
 				}
-				shipType.setModules(modules.substring(0, modules.length() - 1));
-				section = "";
-			} else if(line.endsWith("Werftslots<br>")) {
-				shipType.setWerft(toInt(subString(line, null, "Werftslots<br>")));
-			} else if (line.startsWith("<br>Hüllenstärke: ")) {
-				shipType.setHull(toInt(subString(line, "Hüllenstärke: ", "<br>")));
-			} else if (line.startsWith("Ablative Panzerung: ")) {
-				shipType.setAblativeArmor(toInt(subString(line, "Ablative Panzerung: ", "<br>")));
-			} else if (line.startsWith("Panzerung:")) {
-				shipType.setPanzerung(toInt(subString(line, "Panzerung:", "<br>")));
-			} else if(line.startsWith("Schildstärke:")){
-				shipType.setShields(toInt(subString(line, "Schildstärke:", "<br>")));
-			} else if (line.startsWith("Platz für Einheiten:")) {
-				shipType.setUnitSpace(toInt(subString(line, "Platz für Einheiten:", "<br>")));
-			} else if (line.startsWith("Maximale Einheitengröße:")) {
-				shipType.setMaxUnitSize(toInt(subString(line, "Maximale Einheitengröße:", "<br>")));
-			} else if (line.startsWith("Nahrungsspeicher:")) {
-				shipType.setNahrungCargo(toInt(subString(line, "Nahrungsspeicher:", "<br>")));
-			} else if(line.startsWith("Tanker: <img")) {
-				shipType.setDeutFactor(toInt(subString(line, "Deuterium\">", " für <img")));
-			} else if(line.startsWith("Produziert: <img") && line.contains("alt=\"Nahrung\">")){
-				shipType.setHydro(toInt(subString(line, "alt=\"Nahrung\">", "<br>")));
-			} else if(line.startsWith("Torpedoabwehr:")){
-				shipType.setTorpedoDef(toInt(subString(line, "Torpedoabwehr:", "%<br>")));
-			} else if (line.startsWith("Betriebskosten: ")) {
-				shipType.setReCost(toInt(subString(line, "Betriebskosten: ", "RE")));
-			} else if (getShipFlag(line) != null) {
-				section = "flag";
-				shipFlags.append(getShipFlag(line).getFlag()).append(" ");
-			} else if(section.equals("flag") && !line.equals("</span>")){
-				// continue
-				// TODO: reliable to ignore !only! flag description?
-			} else if(section.equals("flag") && line.equals("</span>")){
-				section = "";
-			} else if (line.equals("<h3>Beschreibung</h3>")) {
-				section = "besch";
-			} else if (section.equals("besch") && line.equals("</td>")) {
-				section = "";
-			} else if (section.equals("besch")) {
-				shipType.setDescrip(shipType.getDescrip() + line + " ");
-			} else {
-				unknownLine(line);
 			}
 		}
+		shipType.setDescrip(descrip.toString());
 		if(shipFlags.length() > 1){
 			shipType.setFlags(shipFlags.substring(0, shipFlags.length() - 1));
 		}
@@ -389,6 +395,145 @@ public class SchiffInfoProcessor extends DSPageProcessor {
 		this.lastShipBaubar = shipBaubar;
 	}	
 
+	/**
+	 * Reads the name, visibility, class and picture at the top of the page. These are checked on
+	 * every line before anything else.
+	 * 
+	 * @return true if the line was used.
+	 */
+	private boolean readHeadLine(String line, ShipType shipType) {
+		if ("".equals(shipType.getNickname())
+				&& line.startsWith("<span style=\"color:#FFFFFF;font-weight:bold;\">")) {
+			shipType.setNickname(subString(line, ">", "</span><br>"));
+		} else if (line.equals("<span class=\"verysmallfont\" style=\"color:red;font-style:italic;font-weight:normal\">unsichtbar</span>")) {
+			shipType.setHide(true);
+		} else if (ShipClasses.UNBEKANNT == shipType.getShipClass()
+				&& line.startsWith("<span class=\"verysmallfont\" style=\"font-style:italic\">")) {
+			shipType.setShipClass(getShipClass(subString(line, ">", "</span><br>")));
+		} else if ("".equals(shipType.getPicture()) && line.startsWith("<img src=\"")
+				&& line.endsWith(" alt=\"\">")) {
+			// TODO: is it always _files ?
+			shipType.setPicture(PICTURE_PATH + subString(line, "_files/", "\" alt=\""));
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a line of the production costs.
+	 * 
+	 * @return true if the line was used.
+	 */
+	private boolean readBauLine(String line, ShipBaubar shipBaubar) {
+		if (line.startsWith("<td class=\"noBorderX\" align=\"left\"><img src=")) {
+			Cargo costs = shipBaubar.getCosts();
+			if (costs == null) {
+				costs = new Cargo();
+			}
+			String sub = subString(line, "<a class=\"tooltip forschinfo\"", null);
+			int count = toInt(sub, "\">", "<span class=");
+			costs.addResource(ItemID.fromString(subString(sub, "ds-item-id=\"", "\"><img src=")), count);
+			shipBaubar.setCosts(costs);
+		} else if (line.startsWith("<tr><td class=\"noBorderX\">Energie</td>")) {
+			shipBaubar.setEKosten(toInt(line, "alt=\"\">", "</td></tr>"));
+		} else if (line.startsWith("<tr><td class=\"noBorderX\">Besatzung</td>")) {
+			shipBaubar.setCrew(toInt(line, "alt=\"\">", "</td></tr>"));
+		} else if (line.startsWith("<tr><td class=\"noBorderX\">Dauer</td>")) {
+			shipBaubar.setDauer(toInt(line, "alt=\"\">", "</td></tr>"));
+		} else if (line.startsWith("<tr><td class=\"noBorderX\">Werftslots</td>")) {
+			shipBaubar.setWerftSlots(toInt(line, "alt=\"\">", "</td></tr>"));
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the tooltip of a weapon.
+	 * 
+	 * @param line line with the tooltip.
+	 * @param weaponId id of the weapon from the previous line.
+	 * @param shipType ShipType for the max heat of the weapon.
+	 */
+	private void readWeapon(String line, String weaponId, ShipType shipType) {
+		// TODO: save all known weapons somewhere
+		Weapon weapon = new Weapon(weaponId); 
+		String sub = subString(line, "'\">", null);
+		if (sub.startsWith("AP-Kosten:")) {
+			weapon.setApCost(toInt(sub, "AP-Kosten:", "<br>"));
+			sub = subString(sub, "<br>", null);
+		}
+		if (sub.startsWith("Energie-Kosten:")) {
+			weapon.setECost(toInt(sub, "Energie-Kosten:", "<br>"));
+			sub = subString(sub, "<br>", null);
+		}
+		if (sub.startsWith("Schüsse:")) {
+			weapon.setSingleShots(toInt(sub, "Schüsse:", "<br>"));
+			sub = subString(sub, "<br>", null);
+		}
+		if (sub.startsWith("Max. Überhitzung:")) {
+			Map<String, Integer> heat = shipType.getMaxHeat();
+			heat.put(weapon.getId(), toInt(sub, "Max. Überhitzung:", "<br>"));
+			shipType.setMaxHeat(heat);
+			sub = subString(sub, "<br>", null);
+		}
+		if (sub.startsWith("Schaden (H/S/Sub):")) {
+			if (sub.startsWith("Schaden (H/S/Sub): Munition")) {
+				Set<String> muni = weapon.getMunitionstypen();
+				muni.add("TODO:");
+				weapon.setMunitionstypen(muni);
+			} else {
+				sub = subString(sub, "Schaden (H/S/Sub):", null);
+				weapon.setBaseDamage(toInt(sub, null, "/"));
+				sub = subString(sub, "/", null);
+				weapon.setShieldDamage(toInt(sub, null, "/"));
+				weapon.setSubDamage(toInt(sub, "/", "<br>"));
+			}
+			sub = subString(sub, "<br>", null);
+		}
+		if (sub.startsWith("Trefferws (C/J/Torp):")) {
+			if (sub.startsWith("Trefferws (C/J/Torp): Munition")) {
+				Set<String> muni = weapon.getMunitionstypen();
+				muni.add("TODO:");
+				weapon.setMunitionstypen(muni);
+			} else {
+				sub = subString(sub, "Trefferws (C/J/Torp):", null);
+				weapon.setDefTrefferWS(toInt(sub, null, "/"));
+				sub = subString(sub, "/", null);
+				weapon.setDefSmallTrefferWS(toInt(sub, null, "/"));
+				weapon.setTorpTrefferWS(Double.parseDouble(subString(sub, "/", "<br>")));
+			}
+			sub = subString(sub, "<br>", null);
+		}
+
+		while (!sub.equals("</span>")) {
+			Set<Flags> flags = weapon.getFlags();
+			flags.add(getWeaponFlag(subString(sub, null, "<br>")));
+			weapon.setFlags(flags);
+			sub = subString(sub, "<br>", null);
+		}
+	}
+
+	/**
+	 * Reads the module slots, separated by &lt;br&gt;.
+	 * 
+	 * @return the slots as "1:id;2:id;...".
+	 */
+	private String readModules(String line) {
+		StringBuilder modules = new StringBuilder();
+		int counter = 1;
+		int start = 0;
+		int end;
+		while ((end = line.indexOf("<br>", start)) >= 0) {
+			modules.append(counter).append(":");
+			modules.append(getModuleId(line.substring(start, end))).append(";");
+			start = end + "<br>".length();
+			counter++;
+		}
+		return modules.substring(0, modules.length() - 1);
+	}
+
 	/**
 	 * Guess values that aren't part of the SchiffInfo page.
 	 * 
@@ -0,0 +1,26 @@
+package adver.sarius.ds2tools.extended;
+
+import net.driftingsouls.ds2.server.Location;
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * Extended JumpNode class for custom id. Used for JNs that don't come from the DB.
+ */
+public class JumpNodeExt extends JumpNode {
+
+	private int id;
+
+	public JumpNodeExt(int id, Location source, Location target, String name) {
+		super(source, target, name);
+		this.id = id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	@Override
+	public int getId() {
+		return this.id;
+	}
+}
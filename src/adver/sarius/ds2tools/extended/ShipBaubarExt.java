@@ -1,9 +1,12 @@
 package adver.sarius.ds2tools.extended;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import adver.sarius.ds2tools.datacollector.DS2DBInfo;
+import adver.sarius.ds2tools.datacollector.RowSink;
 import net.driftingsouls.ds2.server.ships.ShipBaubar;
 import net.driftingsouls.ds2.server.ships.ShipType;
 
@@ -11,6 +14,11 @@ import net.driftingsouls.ds2.server.ships.ShipType;
  * Extended class for custom id.
  */
 public class ShipBaubarExt extends ShipBaubar implements DS2DBInfo {
+	/** Columns of the table, same for every row. */
+	private static final List<String> DB_KEYS = Collections.unmodifiableList(Arrays.asList(
+			"id", "costs", "crew", "dauer", "ekosten", "flagschiff", "race", "werftslots",
+			"res1_id", "res2_id", "res3_id", "type"));
+
 	private int id;
 
 	public ShipBaubarExt(ShipType shipType) {
@@ -36,37 +44,22 @@ public class ShipBaubarExt extends ShipBaubar implements DS2DBInfo {
 
 	@Override
 	public List<String> getDBKeys() {
-		List<String> keys = new ArrayList<>();
-		keys.add("id");
-		keys.add("costs");
-		keys.add("crew");
-		keys.add("dauer");
-		keys.add("ekosten");
-		keys.add("flagschiff");
-		keys.add("race");
-		keys.add("werftslots");
-		keys.add("res1_id");
-		keys.add("res2_id");
-		keys.add("res3_id");
-		keys.add("type");
-		return keys;
+		return DB_KEYS;
 	}
 
 	@Override
-	public List<Object> getDBValues() {
-		List<Object> values = new ArrayList<>();
-		values.add(getId());
-		values.add(getCosts().save());
-		values.add(getCrew());
-		values.add(getDauer());
-		values.add(getEKosten());
-		values.add(boolToInt(isFlagschiff()));
-		values.add(getRace());
-		values.add(getWerftSlots());
-		values.add(getRes(1) != null ? getRes(1).getID() : null);
-		values.add(getRes(2) != null ? getRes(2).getID() : null);
-		values.add(getRes(3) != null ? getRes(3).getID() : null);
-		values.add(getType().getId());
-		return values;
+	public void writeDBValues(RowSink sink) throws IOException {
+		sink.writeInt(getId());
+		sink.writeString(getCosts().save());
+		sink.writeInt(getCrew());
+		sink.writeInt(getDauer());
+		sink.writeInt(getEKosten());
+		sink.writeBoolean(isFlagschiff());
+		sink.writeInt(getRace());
+		sink.writeInt(getWerftSlots());
+		sink.writeInteger(getRes(1) != null ? getRes(1).getID() : null);
+		sink.writeInteger(getRes(2) != null ? getRes(2).getID() : null);
+		sink.writeInteger(getRes(3) != null ? getRes(3).getID() : null);
+		sink.writeInt(getType().getId());
 	}
 }
\ No newline at end of file
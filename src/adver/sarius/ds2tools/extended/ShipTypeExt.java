@@ -1,10 +1,13 @@
 package adver.sarius.ds2tools.extended;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import adver.sarius.ds2tools.datacollector.DS2DBInfo;
+import adver.sarius.ds2tools.datacollector.RowSink;
 import net.driftingsouls.ds2.server.config.Weapons;
 import net.driftingsouls.ds2.server.ships.ShipType;
 
@@ -12,6 +15,15 @@ import net.driftingsouls.ds2.server.ships.ShipType;
  * Extended class for custom id.
  */
 public class ShipTypeExt extends ShipType implements DS2DBInfo {
+	/** Columns of the table, same for every row. */
+	private static final List<String> DB_KEYS = Collections.unmodifiableList(Arrays.asList(
+			"id", "adocks", "ablativeArmor", "bounty", "cargo", "chance4Loot", "cost", "crew",
+			"descrip", "deutfactor", "eps", "flags", "groupwrap", "heat", "hide", "hull", "hydro",
+			"jdocks", "lostInEmpChance", "maxheat", "maxunitsize", "minCrew", "modules",
+			"nahrungcargo", "nickname", "panzerung", "picture", "ra", "rd", "recost", "rm", "ru",
+			"sensorrange", "shields", "class", "size", "srs", "torpedodef", "unitspace", "version",
+			"versorger", "weapons", "werft", "ow_werft"));
+
 	private int id;
 
 	public ShipTypeExt(int id) {
@@ -35,101 +47,54 @@ public class ShipTypeExt extends ShipType implements DS2DBInfo {
 
 	@Override
 	public List<String> getDBKeys() {
-		List<String> keys = new ArrayList<>();
-		keys.add("id");
-		keys.add("adocks");
-		keys.add("ablativeArmor");
-		keys.add("bounty");
-		keys.add("cargo");
-		keys.add("chance4Loot");
-		keys.add("cost");
-		keys.add("crew");
-		keys.add("descrip");
-		keys.add("deutfactor");
-		keys.add("eps");
-		keys.add("flags");
-		keys.add("groupwrap");
-		keys.add("heat");
-		keys.add("hide");
-		keys.add("hull");
-		keys.add("hydro");
-		keys.add("jdocks");
-		keys.add("lostInEmpChance");
-		keys.add("maxheat");
-		keys.add("maxunitsize");
-		keys.add("minCrew");
-		keys.add("modules");
-		keys.add("nahrungcargo");
-		keys.add("nickname");
-		keys.add("panzerung");
-		keys.add("picture");
-		keys.add("ra");
-		keys.add("rd");
-		keys.add("recost");
-		keys.add("rm");
-		keys.add("ru");
-		keys.add("sensorrange");
-		keys.add("shields");
-		keys.add("class");
-		keys.add("size");
-		keys.add("srs");
-		keys.add("torpedodef");
-		keys.add("unitspace");
-		keys.add("version");
-		keys.add("versorger");
-		keys.add("weapons");
-		keys.add("werft");
-		keys.add("ow_werft");
-		return keys;
+		return DB_KEYS;
 	}
 
 	@Override
-	public List<Object> getDBValues() {
-		List<Object> values = new ArrayList<>();
-		values.add(getId());
-		values.add(getADocks());
-		values.add(getAblativeArmor());
-		values.add(getBounty());
-		values.add(getCargo());
-		values.add(getChance4Loot());
-		values.add(getCost());
-		values.add(getCrew());
-		values.add(getDescrip());
-		values.add(getDeutFactor());
-		values.add(getEps());
-		values.add(getFlags().stream().map(f -> f.getFlag()).collect(Collectors.joining(" ")));
-		values.add(getGroupwrap());
-		values.add(getHeat());
-		values.add(boolToInt(isHide()));
-		values.add(getHull());
-		values.add(getHydro());
-		values.add(getJDocks());
-		values.add(getLostInEmpChance());
-		values.add(Weapons.packWeaponList(getMaxHeat()));
-		values.add(getMaxUnitSize());
-		values.add(getMinCrew());
-		values.add(getModules());
-		values.add(getNahrungCargo());
-		values.add(getNickname());
-		values.add(getPanzerung());
-		values.add(getPicture());
-		values.add(getRa());
-		values.add(getRd());
-		values.add(getReCost());
-		values.add(getRm());
-		values.add(getRu());
-		values.add(getSensorRange());
-		values.add(getShields());
-		values.add(getShipClass().ordinal());
-		values.add(getSize());
-		values.add(boolToInt(hasSrs()));
-		values.add(getTorpedoDef());
-		values.add(getUnitSpace());
-		values.add(getVersion());
-		values.add(boolToInt(isVersorger()));
-		values.add(Weapons.packWeaponList(getWeapons()));
-		values.add(getWerft());
-		values.add(getOneWayWerft() != null ? getOneWayWerft().getId() : null);
-		return values;
+	public void writeDBValues(RowSink sink) throws IOException {
+		sink.writeInt(getId());
+		sink.writeInt(getADocks());
+		sink.writeInt(getAblativeArmor());
+		sink.writeObject(getBounty());
+		sink.writeLong(getCargo());
+		sink.writeInt(getChance4Loot());
+		sink.writeInt(getCost());
+		sink.writeInt(getCrew());
+		sink.writeString(getDescrip());
+		sink.writeInt(getDeutFactor());
+		sink.writeInt(getEps());
+		sink.writeString(getFlags().stream().map(f -> f.getFlag()).collect(Collectors.joining(" ")));
+		sink.writeInt(getGroupwrap());
+		sink.writeInt(getHeat());
+		sink.writeBoolean(isHide());
+		sink.writeInt(getHull());
+		sink.writeInt(getHydro());
+		sink.writeInt(getJDocks());
+		sink.writeDouble(getLostInEmpChance());
+		sink.writeString(Weapons.packWeaponList(getMaxHeat()));
+		sink.writeInt(getMaxUnitSize());
+		sink.writeInt(getMinCrew());
+		sink.writeString(getModules());
+		sink.writeLong(getNahrungCargo());
+		sink.writeString(getNickname());
+		sink.writeInt(getPanzerung());
+		sink.writeString(getPicture());
+		sink.writeInt(getRa());
+		sink.writeInt(getRd());
+		sink.writeInt(getReCost());
+		sink.writeInt(getRm());
+		sink.writeInt(getRu());
+		sink.writeInt(getSensorRange());
+		sink.writeInt(getShields());
+		sink.writeInt(getShipClass().ordinal());
+		sink.writeInt(getSize());
+		sink.writeBoolean(hasSrs());
+		sink.writeInt(getTorpedoDef());
+		sink.writeInt(getUnitSpace());
+		sink.writeInt(getVersion());
+		sink.writeBoolean(isVersorger());
+		sink.writeString(Weapons.packWeaponList(getWeapons()));
+		sink.writeInt(getWerft());
+		sink.writeInteger(getOneWayWerft() != null ? getOneWayWerft().getId() : null);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import adver.sarius.ds2tools.Data;
+import net.driftingsouls.ds2.server.Location;
+import net.driftingsouls.ds2.server.config.StarSystem;
+
+/**
+ * Haelt die zuletzt benutzten {@link SystemDistanceField}er. Felder werden beim ersten Zugriff
+ * berechnet, bei Ueberschreiten der maximalen Anzahl fliegt das am laengsten nicht benutzte raus.
+ */
+public class DistanceFieldCache {
+
+	public static final int DEFAULT_MAX_FIELDS = 64;
+
+	private final JumpNodeDistanceMatrix matrix;
+	private final Map<Long, SystemDistanceField> fields;
+
+	public DistanceFieldCache(JumpNodeDistanceMatrix matrix) {
+		this(matrix, DEFAULT_MAX_FIELDS);
+	}
+
+	public DistanceFieldCache(JumpNodeDistanceMatrix matrix, int maxFields) {
+		this.matrix = matrix;
+		this.fields = new LinkedHashMap<Long, SystemDistanceField>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, SystemDistanceField> eldest) {
+				return size() > maxFields;
+			}
+		};
+	}
+
+	public JumpNodeDistanceMatrix getMatrix() {
+		return matrix;
+	}
+
+	/**
+	 * Distanzfeld eines Systems zum Ziel. Die Groesse des Systems wird aus {@link Data#getStarSystem(int)} gelesen.
+	 *
+	 * @param system Das System, fuer dessen Sektoren die Distanzen gelten.
+	 * @param target Ziel, darf in einem anderen System liegen.
+	 * @return Das Feld aus dem Cache oder ein neu berechnetes.
+	 */
+	public SystemDistanceField get(int system, Location target) {
+		StarSystem starSystem = Data.getStarSystem(system);
+		return get(system, starSystem.getWidth(), starSystem.getHeight(), target);
+	}
+
+	/**
+	 * Distanzfeld eines Systems mit bekannter Groesse zum Ziel.
+	 *
+	 * @param system Das System, fuer dessen Sektoren die Distanzen gelten.
+	 * @param width Breite des Systems.
+	 * @param height Hoehe des Systems.
+	 * @param target Ziel, darf in einem anderen System liegen.
+	 * @return Das Feld aus dem Cache oder ein neu berechnetes.
+	 */
+	public synchronized SystemDistanceField get(int system, int width, int height, Location target) {
+		// System und Koordinaten passen jeweils in 16 Bit.
+		long key = ((long) system << 48) | ((long) target.getSystem() << 32) | ((long) target.getX() << 16)
+				| target.getY();
+		SystemDistanceField field = fields.get(key);
+		if (field == null || field.getWidth() != width || field.getHeight() != height) {
+			field = new SystemDistanceField(matrix, system, width, height, target);
+			fields.put(key, field);
+		}
+		return field;
+	}
+
+	public synchronized void clear() {
+		fields.clear();
+	}
+}
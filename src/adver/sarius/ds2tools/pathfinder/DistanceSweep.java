@@ -0,0 +1,154 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Verteilt die Suche des {@link FarthestPairSolver} ueber alle Startsektoren auf einen Fork/Join-Pool.
+ * Die Spalten werden blockweise abgearbeitet. Nach jedem Block wird ausgegeben, mit welchen Werten
+ * fuer {@code pathfinder.distance.x} und {@code pathfinder.distance.currentmax} ein abgebrochener
+ * Lauf fortgesetzt werden kann. Blockbreite und Groesse der Teilaufgaben richten sich nach der
+ * Anzahl der Threads, damit jeder Block mehrere Teilaufgaben pro Thread hat und am Blockende kaum
+ * ein Thread wartet.
+ */
+public class DistanceSweep {
+
+	/** Mindestanzahl der Spalten zwischen zwei Zwischenstaenden. **/
+	private static final int CHECKPOINT_COLUMNS = 10;
+
+	/** Teilaufgaben pro Thread und Block. **/
+	private static final int LEAVES_PER_THREAD = 4;
+
+	/** Grenzen fuer die Anzahl an Startsektoren, ab der eine Teilaufgabe nicht weiter aufgeteilt wird. **/
+	private static final int MIN_SPLIT_THRESHOLD = 16;
+	private static final int MAX_SPLIT_THRESHOLD = 256;
+
+	private final FarthestPairSolver solver;
+	private final ForkJoinPool pool;
+
+	/** Ab dieser Anzahl an Startsektoren wird eine Teilaufgabe nicht weiter aufgeteilt. **/
+	private final int splitThreshold;
+
+	/** Anzahl der Spalten zwischen zwei Zwischenstaenden. **/
+	private final int blockColumns;
+
+	/** Bisher groesste Distanz ueber alle Teilaufgaben, damit jede davon beim Aussortieren profitiert. **/
+	private final AtomicInteger currentMax = new AtomicInteger();
+
+	/**
+	 * @param solver Solver fuer das zu untersuchende System.
+	 * @param threads Anzahl der Threads.
+	 */
+	public DistanceSweep(FarthestPairSolver solver, int threads) {
+		this.solver = solver;
+		this.pool = new ForkJoinPool(threads);
+		int leaves = LEAVES_PER_THREAD * pool.getParallelism();
+		int height = Math.max(1, solver.getHeight());
+		this.splitThreshold = Math.max(MIN_SPLIT_THRESHOLD,
+				Math.min(MAX_SPLIT_THRESHOLD, CHECKPOINT_COLUMNS * height / leaves));
+		// Eine Teilaufgabe hat hoechstens splitThreshold Sektoren, ein Block also mindestens so viele
+		// Teilaufgaben wie leaves.
+		this.blockColumns = Math.max(CHECKPOINT_COLUMNS, (leaves * splitThreshold + height - 1) / height);
+	}
+
+	/**
+	 * Durchsucht alle Startsektoren ab Spalte {@code fromX}.
+	 *
+	 * @param fromX Erste zu untersuchende Spalte.
+	 * @param knownMax Bereits bekannte Distanz, nur groessere werden gesucht.
+	 * @return Das entfernteste Paar. Start und Ende sind null, wenn keins ueber {@code knownMax} liegt.
+	 */
+	public FarthestPair run(int fromX, int knownMax) {
+		FarthestPair max = new FarthestPair(null, null, knownMax);
+		currentMax.set(knownMax);
+		try {
+			for (int x = fromX; x <= solver.getWidth(); x += blockColumns) {
+				int toX = Math.min(solver.getWidth(), x + blockColumns - 1);
+				FarthestPair pair = pool.invoke(new SweepTask(x, toX, 1, solver.getHeight()));
+				if (pair != null && pair.getDistance() > max.getDistance()) {
+					max = pair;
+					System.out.printf("New max distance %d: %s -> %s \n", max.getDistance(), toString(max.getStart()),
+							toString(max.getEnd()));
+				}
+				System.out.println("checkpoint: pathfinder.distance.x=" + (toX + 1)
+						+ " pathfinder.distance.currentmax=" + max.getDistance());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return max;
+	}
+
+	private String toString(Location loc) {
+		return loc.getSystem() + ":" + loc.getX() + "/" + loc.getY();
+	}
+
+	private static FarthestPair larger(FarthestPair a, FarthestPair b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return b.getDistance() > a.getDistance() ? b : a;
+	}
+
+	/**
+	 * Rechteck aus Startsektoren, das so lange halbiert wird, bis es klein genug ist.
+	 */
+	private class SweepTask extends RecursiveTask<FarthestPair> {
+		private static final long serialVersionUID = 1L;
+
+		private final int x1;
+		private final int x2;
+		private final int y1;
+		private final int y2;
+
+		private SweepTask(int x1, int x2, int y1, int y2) {
+			this.x1 = x1;
+			this.x2 = x2;
+			this.y1 = y1;
+			this.y2 = y2;
+		}
+
+		@Override
+		protected FarthestPair compute() {
+			int width = x2 - x1 + 1;
+			int height = y2 - y1 + 1;
+			if (width * height <= splitThreshold) {
+				return computeDirectly();
+			}
+			SweepTask first;
+			SweepTask second;
+			if (width >= height) {
+				int mid = (x1 + x2) >>> 1;
+				first = new SweepTask(x1, mid, y1, y2);
+				second = new SweepTask(mid + 1, x2, y1, y2);
+			} else {
+				int mid = (y1 + y2) >>> 1;
+				first = new SweepTask(x1, x2, y1, mid);
+				second = new SweepTask(x1, x2, mid + 1, y2);
+			}
+			second.fork();
+			return larger(first.compute(), second.join());
+		}
+
+		private FarthestPair computeDirectly() {
+			FarthestPairSolver.Coverage coverage = new FarthestPairSolver.Coverage();
+			FarthestPair best = null;
+			for (int x = x1; x <= x2; x++) {
+				for (int y = y1; y <= y2; y++) {
+					FarthestPair pair = solver.getFarthestFrom(x, y, currentMax.get(), coverage);
+					if (pair != null) {
+						currentMax.accumulateAndGet(pair.getDistance(), Math::max);
+						best = larger(best, pair);
+					}
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Ergebnis der Suche nach den am weitesten voneinander entfernten Punkten.
+ */
+public class FarthestPair {
+	private Location start;
+	private Location end;
+	private int distance;
+
+	public FarthestPair(Location start, Location end, int distance) {
+		this.start = start;
+		this.end = end;
+		this.distance = distance;
+	}
+
+	/**
+	 * @return Startpunkt oder null, wenn kein Paar ueber der Startdistanz gefunden wurde.
+	 */
+	public Location getStart() {
+		return start;
+	}
+
+	/**
+	 * @return Endpunkt oder null, wenn kein Paar ueber der Startdistanz gefunden wurde.
+	 */
+	public Location getEnd() {
+		return end;
+	}
+
+	public int getDistance() {
+		return distance;
+	}
+}
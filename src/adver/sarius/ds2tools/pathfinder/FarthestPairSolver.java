@@ -0,0 +1,233 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.Arrays;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Findet die zwei am weitesten voneinander entfernten Sektoren innerhalb eines Systems, gemessen
+ * am kuerzesten Weg (auch ueber JNs in andere Systeme und zurueck).
+ * <p>
+ * Vom Sektor a aus ist die Distanz zu b das Minimum aus der direkten Distanz und, fuer jeden JN e der
+ * ins System fuehrt, der Distanz von a bis zum Austrittspunkt von e plus der Distanz von dort bis b.
+ * Die Distanzen von jedem Sektor zu den Austrittspunkten kommen einmal pro JN als Feld aus dem
+ * {@link DistanceFieldCache}.
+ * Damit ist die Entfernung zu b das Minimum einiger "Pyramiden" um a und die Austrittspunkte. Ob es
+ * ein b mit Distanz groesser M gibt, ist genau die Frage, ob die Quadrate mit Radius M-Kosten um
+ * diese Punkte das System ueberdecken. Das laesst sich ohne Schleife ueber alle b beantworten.
+ */
+public class FarthestPairSolver {
+
+	private final JumpNodeGraph graph;
+	private final int system;
+	private final int width;
+	private final int height;
+
+	/** JNs, die ins System fuehren. **/
+	private final int[] arriving;
+
+	/** Pro JN aus {@link #arriving}: Distanz von jedem Sektor bis zum Austrittspunkt. **/
+	private final int[][] arrivalFields;
+
+	/**
+	 * @param fields Cache fuer die Distanzfelder zu den Austrittspunkten.
+	 * @param system Das zu untersuchende System.
+	 * @param width Breite des Systems.
+	 * @param height Hoehe des Systems.
+	 */
+	public FarthestPairSolver(DistanceFieldCache fields, int system, int width, int height) {
+		this.graph = fields.getMatrix().getGraph();
+		this.system = system;
+		this.width = width;
+		this.height = height;
+		this.arriving = graph.getNodesArrivingIn(system);
+		this.arrivalFields = new int[arriving.length][];
+		for (int i = 0; i < arriving.length; i++) {
+			Location exit = new Location(system, graph.getXOut(arriving[i]), graph.getYOut(arriving[i]));
+			arrivalFields[i] = fields.get(system, width, height, exit).getDistances();
+		}
+	}
+
+	public int getSystem() {
+		return system;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Durchsucht alle Startsektoren ab Spalte {@code fromX} in einem Thread.
+	 * Fuer mehrere Threads siehe {@link DistanceSweep}.
+	 *
+	 * @param fromX Erste zu untersuchende Spalte.
+	 * @param currentMax Bereits bekannte Distanz, nur groessere werden gesucht.
+	 * @return Das entfernteste Paar. Start und Ende sind null, wenn keins ueber {@code currentMax} liegt.
+	 */
+	public FarthestPair solve(int fromX, int currentMax) {
+		FarthestPair max = new FarthestPair(null, null, currentMax);
+		Coverage coverage = new Coverage();
+		for (int x = fromX; x <= width; x++) {
+			for (int y = 1; y <= height; y++) {
+				FarthestPair pair = getFarthestFrom(x, y, max.getDistance(), coverage);
+				if (pair != null) {
+					max = pair;
+					System.out.printf("New max distance %d: %s -> %s \n", max.getDistance(),
+							toString(max.getStart()), toString(max.getEnd()));
+				}
+			}
+			System.out.println("finished with x=" + x + ", currentmax=" + max.getDistance());
+		}
+		return max;
+	}
+
+	/**
+	 * Sucht den entferntesten Sektor vom Startsektor aus.
+	 *
+	 * @param x X-Koordinate des Starts.
+	 * @param y Y-Koordinate des Starts.
+	 * @param atLeast Nur Distanzen groesser als dieser Wert sind interessant.
+	 * @param coverage Arbeitsspeicher, darf nicht von mehreren Threads gleichzeitig genutzt werden.
+	 *        Der Solver selbst kann von mehreren Threads gleichzeitig genutzt werden.
+	 * @return Start, entferntester Sektor und Distanz oder null, wenn die Distanz nicht groesser als
+	 *         {@code atLeast} ist.
+	 */
+	public FarthestPair getFarthestFrom(int x, int y, int atLeast, Coverage coverage) {
+		coverage.reset(arriving.length + 1);
+		coverage.add(x, y, 0);
+		int index = (y - 1) * width + (x - 1);
+		for (int i = 0; i < arriving.length; i++) {
+			int cost = arrivalFields[i][index];
+			if (cost != JumpNodeDistanceMatrix.UNREACHABLE) {
+				coverage.add(graph.getXOut(arriving[i]), graph.getYOut(arriving[i]), cost);
+			}
+		}
+
+		if (!coverage.findUncovered(atLeast, width, height)) {
+			return null;
+		}
+		// Kleinste Distanz, bei der alles ueberdeckt ist, ist die gesuchte maximale Distanz.
+		int lo = atLeast;
+		int hi = Math.max(width, height) - 1;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (coverage.findUncovered(mid, width, height)) {
+				lo = mid;
+			} else {
+				hi = mid;
+			}
+		}
+		coverage.findUncovered(lo, width, height);
+		return new FarthestPair(new Location(system, x, y),
+				new Location(system, coverage.getUncoveredX(), coverage.getUncoveredY()), hi);
+	}
+
+	private String toString(Location loc) {
+		return loc.getSystem() + ":" + loc.getX() + "/" + loc.getY();
+	}
+
+	/**
+	 * Prueft, ob Quadrate um gewichtete Punkte ein Rechteck ab (1,1) ueberdecken. Ein Punkt mit Kosten c
+	 * deckt bei Distanz M alle Sektoren mit Abstand hoechstens M-c ab. Haelt die Arrays fuer die
+	 * Pruefung, damit pro Startsektor nichts angelegt werden muss.
+	 */
+	public static class Coverage {
+		private int[] centerX = new int[0];
+		private int[] centerY = new int[0];
+		private int[] cost = new int[0];
+		private int count;
+
+		/** Spalten, an denen sich die Menge der ueberdeckenden Quadrate aendern kann. **/
+		private int[] columns = new int[0];
+		/** Y-Intervalle einer Spalte als (von << 32 | bis). **/
+		private long[] intervals = new long[0];
+
+		private int uncoveredX;
+		private int uncoveredY;
+
+		private void reset(int capacity) {
+			if (centerX.length < capacity) {
+				centerX = new int[capacity];
+				centerY = new int[capacity];
+				cost = new int[capacity];
+				columns = new int[2 * capacity + 1];
+				intervals = new long[capacity];
+			}
+			count = 0;
+		}
+
+		private void add(int x, int y, int c) {
+			centerX[count] = x;
+			centerY[count] = y;
+			cost[count] = c;
+			count++;
+		}
+
+		/**
+		 * @return true, wenn es einen Sektor gibt, dessen Distanz zu allen Punkten groesser als
+		 *         {@code distance} minus Kosten ist. Der Sektor ist dann ueber {@link #getUncoveredX()}
+		 *         und {@link #getUncoveredY()} abrufbar.
+		 */
+		private boolean findUncovered(int distance, int width, int height) {
+			int columnCount = 0;
+			columns[columnCount++] = 1;
+			for (int i = 0; i < count; i++) {
+				int r = distance - cost[i];
+				if (r < 0) {
+					continue;
+				}
+				int left = centerX[i] - r;
+				int right = centerX[i] + r + 1;
+				if (left >= 1 && left <= width) {
+					columns[columnCount++] = left;
+				}
+				if (right >= 1 && right <= width) {
+					columns[columnCount++] = right;
+				}
+			}
+
+			for (int c = 0; c < columnCount; c++) {
+				int column = columns[c];
+				int intervalCount = 0;
+				for (int i = 0; i < count; i++) {
+					int r = distance - cost[i];
+					if (r < 0 || Math.abs(column - centerX[i]) > r) {
+						continue;
+					}
+					int top = Math.max(1, centerY[i] - r);
+					int bottom = Math.min(height, centerY[i] + r);
+					if (top <= bottom) {
+						intervals[intervalCount++] = ((long) top << 32) | bottom;
+					}
+				}
+				Arrays.sort(intervals, 0, intervalCount);
+				int reached = 0;
+				for (int i = 0; i < intervalCount && reached < height; i++) {
+					int top = (int) (intervals[i] >>> 32);
+					if (top > reached + 1) {
+						break;
+					}
+					reached = Math.max(reached, (int) intervals[i]);
+				}
+				if (reached < height) {
+					uncoveredX = column;
+					uncoveredY = reached + 1;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int getUncoveredX() {
+			return uncoveredX;
+		}
+
+		private int getUncoveredY() {
+			return uncoveredY;
+		}
+	}
+}
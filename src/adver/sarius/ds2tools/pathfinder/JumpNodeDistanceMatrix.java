@@ -0,0 +1,294 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Distanzen zwischen allen Paaren von JNs. Die Distanz von JN i nach JN j ist die kuerzeste Strecke
+ * vom Eintrittspunkt von i (inklusive Sprung durch i) bis zum Eintrittspunkt von j. Zu jedem Paar
+ * wird zusaetzlich der naechste JN auf dem Weg gespeichert, um den Weg rekonstruieren zu koennen.
+ * Beide Tabellen liegen zeilenweise in einem {@code int[]} der Groesse n*n.
+ */
+public class JumpNodeDistanceMatrix {
+
+	/** Distanz fuer nicht erreichbare JNs. **/
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	/** Kennung am Anfang der Datei. **/
+	private static final int FILE_MAGIC = 0x44534a4d;
+	private static final int FILE_VERSION = 1;
+	/** Magic, Version, Hash und Anzahl der JNs. **/
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+	/** Anzahl der Ints, die auf einmal gelesen oder geschrieben werden. **/
+	private static final int IO_CHUNK = 1 << 16;
+	/** Groesste Laenge eines Arrays, etwas Platz fuer die Header der JVM. **/
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private final JumpNodeGraph graph;
+	private final int n;
+	private final int[] dist;
+	private final int[] next;
+
+	private JumpNodeDistanceMatrix(JumpNodeGraph graph, int[] dist, int[] next) {
+		this.graph = graph;
+		this.n = graph.size();
+		this.dist = dist;
+		this.next = next;
+	}
+
+	/**
+	 * Berechnet die Matrix mit einer Dijkstra-Suche pro JN. Die Suchen laufen parallel.
+	 *
+	 * @param graph Graph ueber alle JNs.
+	 * @return Die berechnete Matrix.
+	 */
+	public static JumpNodeDistanceMatrix calculate(JumpNodeGraph graph) {
+		int size = getMatrixSize(graph.size());
+		int[] dist = new int[size];
+		int[] next = new int[size];
+		int n = graph.size();
+		IntStream.range(0, n).parallel().forEach(source -> calculateRow(graph, source, dist, next));
+		return new JumpNodeDistanceMatrix(graph, dist, next);
+	}
+
+	/**
+	 * Laedt die Matrix aus der Datei, wenn sie zum Graphen passt. Ansonsten wird sie neu berechnet
+	 * und die Datei ueberschrieben.
+	 *
+	 * @param graph Graph ueber alle JNs.
+	 * @param file Datei mit der gespeicherten Matrix.
+	 * @return Die geladene oder neu berechnete Matrix.
+	 */
+	public static JumpNodeDistanceMatrix loadOrCalculate(JumpNodeGraph graph, File file) {
+		try {
+			JumpNodeDistanceMatrix matrix = load(graph, file);
+			if (matrix != null) {
+				return matrix;
+			}
+		} catch (IOException ex) {
+			System.out.println("Failed to read JN matrix: " + ex);
+		}
+		JumpNodeDistanceMatrix matrix = calculate(graph);
+		try {
+			matrix.save(file);
+		} catch (IOException ex) {
+			System.out.println("Failed to write JN matrix: " + ex);
+		}
+		return matrix;
+	}
+
+	/**
+	 * @return Die gespeicherte Matrix oder null, wenn es keine Datei gibt oder sie nicht zum Graphen passt.
+	 */
+	public static JumpNodeDistanceMatrix load(JumpNodeGraph graph, File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header);
+			header.flip();
+			if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION
+					|| header.getLong() != graph.getContentHash() || header.getInt() != graph.size()) {
+				return null;
+			}
+			int size = getMatrixSize(graph.size());
+			int[] dist = readInts(channel, size);
+			int[] next = readInts(channel, size);
+			return new JumpNodeDistanceMatrix(graph, dist, next);
+		}
+	}
+
+	/**
+	 * Speichert die Matrix zusammen mit dem Hash der JNs, aus denen sie berechnet wurde.
+	 */
+	public void save(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putLong(graph.getContentHash()).putInt(n);
+			header.flip();
+			channel.write(header);
+			writeInts(channel, dist);
+			writeInts(channel, next);
+		}
+	}
+
+	/**
+	 * @return Anzahl der Eintraege einer Tabelle fuer {@code n} JNs.
+	 * @throws IllegalArgumentException wenn die Tabelle nicht in ein Array passt.
+	 */
+	private static int getMatrixSize(int n) {
+		long size = (long) n * n;
+		if (size > MAX_ARRAY_SIZE) {
+			throw new IllegalArgumentException("Too many JNs for a distance matrix: " + n + " (at most "
+					+ (int) Math.sqrt(MAX_ARRAY_SIZE) + ")");
+		}
+		return (int) size;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	/**
+	 * Liest die Ints stueckweise, damit kein Puffer ueber die Groesse eines Arrays hinaus noetig ist.
+	 */
+	private static int[] readInts(FileChannel channel, int count) throws IOException {
+		int[] values = new int[count];
+		ByteBuffer buffer = ByteBuffer.allocate(Math.min(count, IO_CHUNK) * 4);
+		for (int pos = 0; pos < count; pos += IO_CHUNK) {
+			int length = Math.min(IO_CHUNK, count - pos);
+			buffer.clear();
+			buffer.limit(length * 4);
+			readFully(channel, buffer);
+			buffer.flip();
+			buffer.asIntBuffer().get(values, pos, length);
+		}
+		return values;
+	}
+
+	private static void writeInts(FileChannel channel, int[] values) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Math.min(values.length, IO_CHUNK) * 4);
+		for (int pos = 0; pos < values.length; pos += IO_CHUNK) {
+			int length = Math.min(IO_CHUNK, values.length - pos);
+			buffer.clear();
+			IntBuffer ints = buffer.asIntBuffer();
+			ints.put(values, pos, length);
+			buffer.limit(length * 4);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Dijkstra vom JN {@code source} aus. Fuellt die Zeile {@code source} beider Tabellen.
+	 */
+	private static void calculateRow(JumpNodeGraph graph, int source, int[] dist, int[] next) {
+		int n = graph.size();
+		int row = source * n;
+		Arrays.fill(dist, row, row + n, UNREACHABLE);
+		Arrays.fill(next, row, row + n, -1);
+		dist[row + source] = 0;
+
+		// Nur die Queue wird genutzt, Distanzen und Vorgaenger stehen direkt in der Zeile.
+		SearchWorkspace queue = SearchWorkspace.get(n);
+		queue.push(source, 0);
+		while (!queue.isEmpty()) {
+			long entry = queue.pop();
+			int d = (int) (entry >>> 32);
+			int u = (int) entry;
+			if (d > dist[row + u]) {
+				continue;
+			}
+			for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+				int v = graph.getEdgeTarget(e);
+				int nd = d + graph.getEdgeWeight(e);
+				if (nd < dist[row + v]) {
+					dist[row + v] = nd;
+					// Der erste Schritt nach source ist v selbst oder wird vom Vorgaenger uebernommen.
+					next[row + v] = u == source ? v : next[row + u];
+					queue.push(v, nd);
+				}
+			}
+		}
+	}
+
+	public JumpNodeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return Distanz vom Eintrittspunkt von {@code from} bis zum Eintrittspunkt von {@code to} oder
+	 *         {@link #UNREACHABLE}.
+	 */
+	public int getDistance(int from, int to) {
+		return dist[from * n + to];
+	}
+
+	/**
+	 * @return Naechster JN auf dem Weg von {@code from} nach {@code to} oder -1.
+	 */
+	public int getNext(int from, int to) {
+		return next[from * n + to];
+	}
+
+	/**
+	 * @return Alle JNs von {@code from} bis einschliesslich {@code to}.
+	 */
+	public List<Integer> getPath(int from, int to) {
+		List<Integer> path = new ArrayList<Integer>();
+		path.add(from);
+		for (int node = from; node != to; node = getNext(node, to)) {
+			path.add(getNext(node, to));
+		}
+		return path;
+	}
+
+	/**
+	 * Kuerzester Weg ueber die Matrix: Minimum ueber alle JNs im Startsystem und alle JNs, die ins
+	 * Zielsystem fuehren, aus lokaler Distanz und Matrix-Eintrag. JNs koennen nicht ausgeschlossen werden.
+	 *
+	 * @param start Startpunkt.
+	 * @param end Endpunkt.
+	 * @param maxTestDist Laengere Wege werden nicht beachtet.
+	 * @return Der kuerzeste Weg oder null, wenn es keinen innerhalb von {@code maxTestDist} gibt.
+	 */
+	public PathDistanceTupel findShortestPath(Location start, Location end, int maxTestDist) {
+		int best = Integer.MAX_VALUE;
+		int bestFrom = -1;
+		int bestTo = -1;
+		if (start.getSystem() == end.getSystem()) {
+			best = JumpNodeGraph.getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+		}
+		int[] arriving = graph.getNodesArrivingIn(end.getSystem());
+		for (int from : graph.getNodesInSystem(start.getSystem())) {
+			int toFrom = graph.getDistanceTo(start, from);
+			if (toFrom >= best) {
+				continue;
+			}
+			int row = from * n;
+			for (int to : arriving) {
+				if (dist[row + to] == UNREACHABLE) {
+					continue;
+				}
+				int d = toFrom + dist[row + to] + graph.getDistanceFrom(to, end);
+				if (d < best) {
+					best = d;
+					bestFrom = from;
+					bestTo = to;
+				}
+			}
+		}
+		if (best == Integer.MAX_VALUE || best > maxTestDist) {
+			return null;
+		}
+		if (bestFrom < 0) {
+			return new PathDistanceTupel(new int[0], best);
+		}
+		int length = 1;
+		for (int node = bestFrom; node != bestTo; node = getNext(node, bestTo)) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int node = bestFrom, i = 0; i < length; node = getNext(node, bestTo), i++) {
+			path[i] = graph.getId(node);
+		}
+		return new PathDistanceTupel(path, best);
+	}
+}
@@ -0,0 +1,288 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import adver.sarius.ds2tools.Data;
+import adver.sarius.ds2tools.JumpNodeTable;
+import net.driftingsouls.ds2.server.Location;
+import net.driftingsouls.ds2.server.entities.JumpNode;
+
+/**
+ * Unveraenderlicher, gewichteter Graph ueber alle JNs eines Stands aus {@link Data#getUniverse()}.
+ * Knoten sind die JNs (Eintrittspunkt im System, Austrittspunkt im Zielsystem). Eine Kante von
+ * JN u nach JN v existiert, wenn v im Zielsystem von u liegt. Das Gewicht ist die Distanz vom
+ * Austrittspunkt von u bis zu v, der Sprung selbst kostet nichts.
+ * Die Knoten werden intern ueber einen Index von 0 bis {@link #size()}-1 angesprochen und sind
+ * nach JN-Id sortiert, sodass gleiche JNs immer die gleichen Indizes bekommen.
+ */
+public class JumpNodeGraph {
+
+	private static final int[] NO_NODES = new int[0];
+
+	private final int[] ids;
+	private final int[] system;
+	private final int[] x;
+	private final int[] y;
+	private final int[] systemOut;
+	private final int[] xOut;
+	private final int[] yOut;
+
+	/** Index des JNs zu seiner Id. **/
+	private final Map<Integer, Integer> indexById;
+
+	/** Indizes aller JNs eines Systems. **/
+	private final Map<Integer, int[]> systemNodes;
+
+	/** Indizes aller JNs, deren Ziel im System liegt. **/
+	private final Map<Integer, int[]> arrivingNodes;
+
+	/**
+	 * Gegenstuecke im CSR-Format: JNs, deren Austrittspunkt der Eintrittspunkt von u ist, liegen in
+	 * [oppositeStart[u], oppositeStart[u+1]).
+	 */
+	private final int[] oppositeStart;
+	private final int[] opposite;
+
+	/** Kanten im CSR-Format: Kanten von u liegen in [edgeStart[u], edgeStart[u+1]). **/
+	private final int[] edgeStart;
+	private final int[] edgeTarget;
+	private final int[] edgeWeight;
+
+	/**
+	 * @return Den Graphen des aktuellen Stands aus {@link Data#getUniverse()}. Nach einem Neuladen der
+	 *         JNs wird ein neuer Graph geliefert, bereits geholte Graphen bleiben unveraendert.
+	 */
+	public static JumpNodeGraph getInstance() {
+		return Data.getUniverse().getGraph();
+	}
+
+	public JumpNodeGraph(Collection<List<JumpNode>> jnsBySystem) {
+		this(JumpNodeTable.of(jnsBySystem.stream().flatMap(List::stream).collect(Collectors.toList())));
+	}
+
+	/**
+	 * @param table Alle JNs, nach Id sortiert.
+	 */
+	public JumpNodeGraph(JumpNodeTable table) {
+		int n = table.size();
+		ids = new int[n];
+		system = new int[n];
+		x = new int[n];
+		y = new int[n];
+		systemOut = new int[n];
+		xOut = new int[n];
+		yOut = new int[n];
+		indexById = new HashMap<Integer, Integer>(n * 2);
+
+		int i;
+		for (i = 0; i < n; i++) {
+			ids[i] = table.getId(i);
+			system[i] = table.getSystem(i);
+			x[i] = table.getX(i);
+			y[i] = table.getY(i);
+			systemOut[i] = table.getSystemOut(i);
+			xOut[i] = table.getXOut(i);
+			yOut[i] = table.getYOut(i);
+			indexById.put(ids[i], i);
+		}
+		systemNodes = groupBySystem(system);
+		arrivingNodes = groupBySystem(systemOut);
+
+		oppositeStart = new int[n + 1];
+		for (i = 0; i < n; i++) {
+			oppositeStart[i + 1] = oppositeStart[i];
+			for (int v : getNodesArrivingIn(system[i])) {
+				if (isOpposite(i, v)) {
+					oppositeStart[i + 1]++;
+				}
+			}
+		}
+		opposite = new int[oppositeStart[n]];
+		for (i = 0; i < n; i++) {
+			int o = oppositeStart[i];
+			for (int v : getNodesArrivingIn(system[i])) {
+				if (isOpposite(i, v)) {
+					opposite[o++] = v;
+				}
+			}
+		}
+
+		edgeStart = new int[n + 1];
+		for (i = 0; i < n; i++) {
+			edgeStart[i + 1] = edgeStart[i] + getNodesInSystem(systemOut[i]).length;
+		}
+		edgeTarget = new int[edgeStart[n]];
+		edgeWeight = new int[edgeStart[n]];
+		for (i = 0; i < n; i++) {
+			int e = edgeStart[i];
+			for (int v : getNodesInSystem(systemOut[i])) {
+				edgeTarget[e] = v;
+				edgeWeight[e] = getDistance(xOut[i], yOut[i], x[v], y[v]);
+				e++;
+			}
+		}
+	}
+
+	/**
+	 * Gruppiert die Knoten-Indizes nach dem System aus dem uebergebenen Array.
+	 */
+	private static Map<Integer, int[]> groupBySystem(int[] systems) {
+		Map<Integer, Integer> count = new HashMap<Integer, Integer>();
+		for (int sys : systems) {
+			count.merge(sys, 1, Integer::sum);
+		}
+		Map<Integer, int[]> result = new HashMap<Integer, int[]>(count.size() * 2);
+		for (Map.Entry<Integer, Integer> entry : count.entrySet()) {
+			result.put(entry.getKey(), new int[entry.getValue()]);
+		}
+		Map<Integer, Integer> fill = new HashMap<Integer, Integer>(count.size() * 2);
+		for (int i = 0; i < systems.length; i++) {
+			int pos = fill.getOrDefault(systems[i], 0);
+			result.get(systems[i])[pos] = i;
+			fill.put(systems[i], pos + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * @return Anzahl der JNs im Graphen.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @param id Interne Id des JNs.
+	 * @return Index des JNs im Graphen oder -1, wenn der JN nicht enthalten ist.
+	 */
+	public int indexOf(int id) {
+		Integer index = indexById.get(id);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @param system Id des Systems.
+	 * @return Indizes aller JNs im System. Das Array darf nicht veraendert werden.
+	 */
+	public int[] getNodesInSystem(int system) {
+		int[] nodes = systemNodes.get(system);
+		return nodes != null ? nodes : NO_NODES;
+	}
+
+	/**
+	 * @param system Id des Systems.
+	 * @return Indizes aller JNs, die in das System fuehren. Das Array darf nicht veraendert werden.
+	 */
+	public int[] getNodesArrivingIn(int system) {
+		int[] nodes = arrivingNodes.get(system);
+		return nodes != null ? nodes : NO_NODES;
+	}
+
+	/**
+	 * Hash ueber alle JNs mit ihren Koordinaten. Aendert sich, sobald sich die JNs aendern.
+	 *
+	 * @return 64bit FNV-1a Hash.
+	 */
+	public long getContentHash() {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < ids.length; i++) {
+			int[] values = { ids[i], system[i], x[i], y[i], systemOut[i], xOut[i], yOut[i] };
+			for (int value : values) {
+				for (int shift = 0; shift < 32; shift += 8) {
+					hash ^= (value >>> shift) & 0xff;
+					hash *= 0x100000001b3L;
+				}
+			}
+		}
+		return hash;
+	}
+
+	public int getId(int node) {
+		return ids[node];
+	}
+
+	public int getSystem(int node) {
+		return system[node];
+	}
+
+	public int getX(int node) {
+		return x[node];
+	}
+
+	public int getY(int node) {
+		return y[node];
+	}
+
+	public int getSystemOut(int node) {
+		return systemOut[node];
+	}
+
+	public int getXOut(int node) {
+		return xOut[node];
+	}
+
+	public int getYOut(int node) {
+		return yOut[node];
+	}
+
+	/**
+	 * @return true, wenn {@code other} genau am Eintrittspunkt von {@code node} landet, also der
+	 *         Rueckweg von {@code node} ist. Wie {@link Data#getOppositeJNs}.
+	 */
+	public boolean isOpposite(int node, int other) {
+		return systemOut[other] == system[node] && xOut[other] == x[node] && yOut[other] == y[node];
+	}
+
+	public int getOppositeStart(int node) {
+		return oppositeStart[node];
+	}
+
+	public int getOppositeEnd(int node) {
+		return oppositeStart[node + 1];
+	}
+
+	public int getOpposite(int index) {
+		return opposite[index];
+	}
+
+	public int getEdgeStart(int node) {
+		return edgeStart[node];
+	}
+
+	public int getEdgeEnd(int node) {
+		return edgeStart[node + 1];
+	}
+
+	public int getEdgeTarget(int edge) {
+		return edgeTarget[edge];
+	}
+
+	public int getEdgeWeight(int edge) {
+		return edgeWeight[edge];
+	}
+
+	/**
+	 * @return Distanz von {@code loc} bis zum Eintrittspunkt des JNs.
+	 */
+	public int getDistanceTo(Location loc, int node) {
+		return getDistance(loc.getX(), loc.getY(), x[node], y[node]);
+	}
+
+	/**
+	 * @return Distanz vom Austrittspunkt des JNs bis {@code loc}.
+	 */
+	public int getDistanceFrom(int node, Location loc) {
+		return getDistance(xOut[node], yOut[node], loc.getX(), loc.getY());
+	}
+
+	/**
+	 * Distanz zweier Sektoren innerhalb eines Systems. Diagonale Schritte kosten genauso viel wie gerade.
+	 */
+	public static int getDistance(int x1, int y1, int x2, int y2) {
+		return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+	}
+}
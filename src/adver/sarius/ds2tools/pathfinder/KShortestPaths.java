@@ -0,0 +1,357 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Findet die k kuerzesten schleifenfreien Wege vom Start zum Ende nach Yen.
+ * Schleifenfrei heisst: kein JN wird zweimal genutzt und nach einem JN wird keiner seiner
+ * Gegenstuecke genutzt, also kein JN, der am Eintrittspunkt des frueheren JNs landet
+ * ({@link JumpNodeGraph#isOpposite}, wie {@link adver.sarius.ds2tools.Data#getOppositeJNs}). Sonst
+ * waeren die Alternativen meist nur der beste Weg mit einem kostenlosen Sprung hin und zurueck.
+ * <p>
+ * Die Dijkstra-Suchen selbst kennen nur die gesperrten JNs. Landet ein gefundener Weg am
+ * Eintrittspunkt eines frueheren JNs, wird die Schleife dazwischen herausgeschnitten. Der kuerzere
+ * Weg ist nie laenger, also ebenfalls ein kuerzester. Beginnt die Schleife beim ersten JN nach dem
+ * Abzweig, wird stattdessen einmal mit diesem JN als festem ersten Schritt und einmal ohne ihn
+ * gesucht. Die Ergebnisse sind damit genau die k kuerzesten erlaubten Wege.
+ * Es werden nur so viele Dijkstra-Suchen auf dem {@link JumpNodeGraph} gemacht, wie fuer die
+ * angefragten k Wege noetig sind, statt alle Wege aufzuzaehlen. Fuer k = 1 ist das genau eine Suche.
+ * Ein Objekt ist nur fuer eine Anfrage gedacht.
+ */
+public class KShortestPaths {
+
+	/** Markiert in {@link #search} das Ziel als naechsten Knoten nach dem Abzweig. **/
+	private static final int TARGET = -1;
+
+	private final JumpNodeGraph graph;
+	private final Location start;
+	private final Location end;
+	private final int maxTestDist;
+
+	/** JNs die nie benutzt werden duerfen. **/
+	private final boolean[] avoid;
+
+	/**
+	 * @param graph Graph ueber alle JNs.
+	 * @param start Startpunkt.
+	 * @param end Endpunkt.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen.
+	 * @param maxTestDist Wege die laenger sind werden nicht beachtet.
+	 */
+	public KShortestPaths(JumpNodeGraph graph, Location start, Location end, Set<Integer> jnsToAvoid,
+			int maxTestDist) {
+		this.graph = graph;
+		this.start = start;
+		this.end = end;
+		this.maxTestDist = maxTestDist;
+		this.avoid = new boolean[graph.size()];
+		for (Integer id : jnsToAvoid) {
+			int node = graph.indexOf(id);
+			if (node >= 0) {
+				avoid[node] = true;
+			}
+		}
+	}
+
+	/**
+	 * Berechnet bis zu {@code k} kuerzeste Wege.
+	 *
+	 * @param k Maximale Anzahl an Wegen.
+	 * @return Die Wege aufsteigend nach Distanz sortiert.
+	 */
+	public List<PathDistanceTupel> find(int k) {
+		List<Route> accepted = new ArrayList<Route>();
+		PriorityQueue<Route> candidates = new PriorityQueue<Route>();
+		Set<Route> known = new HashSet<Route>();
+
+		boolean[] blocked = new boolean[graph.size()];
+		Route first = search(new int[0], 0, 0, blocked, new int[0], 0);
+		if (first != null) {
+			candidates.add(first);
+			known.add(first);
+		}
+		while (accepted.size() < k && !candidates.isEmpty()) {
+			Route route = candidates.poll();
+			accepted.add(route);
+			if (accepted.size() == k) {
+				break;
+			}
+
+			// Jeder Knoten des letzten Weges (inklusive Start) ist einmal Abzweig.
+			Arrays.fill(blocked, false);
+			int[] blockedNext = new int[accepted.size()];
+			int rootDist = 0;
+			for (int i = 0; i <= route.nodes.length; i++) {
+				int blockedCount = 0;
+				for (Route other : accepted) {
+					if (other.nodes.length >= i && samePrefix(route.nodes, other.nodes, i)) {
+						blockedNext[blockedCount++] = i < other.nodes.length ? other.nodes[i] : TARGET;
+					}
+				}
+				Route spur = search(route.nodes, i, rootDist, blocked, blockedNext, blockedCount);
+				if (spur != null && known.add(spur)) {
+					candidates.add(spur);
+				}
+				if (i < route.nodes.length) {
+					rootDist += getStep(route.nodes, i);
+					block(blocked, route.nodes[i]);
+				}
+			}
+		}
+
+		List<PathDistanceTupel> result = new ArrayList<PathDistanceTupel>(accepted.size());
+		for (Route route : accepted) {
+			int[] ids = new int[route.nodes.length];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = graph.getId(route.nodes[i]);
+			}
+			result.add(new PathDistanceTupel(ids, route.distance));
+		}
+		return result;
+	}
+
+	private static boolean samePrefix(int[] a, int[] b, int length) {
+		for (int i = 0; i < length; i++) {
+			if (a[i] != b[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sperrt den JN und seine Gegenstuecke fuer den Rest des Weges.
+	 */
+	private void block(boolean[] blocked, int node) {
+		blocked[node] = true;
+		for (int o = graph.getOppositeStart(node); o < graph.getOppositeEnd(node); o++) {
+			blocked[graph.getOpposite(o)] = true;
+		}
+	}
+
+	/**
+	 * @return Distanz vom vorherigen Knoten (bzw. dem Start) bis zum Eintrittspunkt von {@code nodes[i]}.
+	 */
+	private int getStep(int[] nodes, int i) {
+		if (i == 0) {
+			return graph.getDistanceTo(start, nodes[0]);
+		}
+		return JumpNodeGraph.getDistance(graph.getXOut(nodes[i - 1]), graph.getYOut(nodes[i - 1]),
+				graph.getX(nodes[i]), graph.getY(nodes[i]));
+	}
+
+	/**
+	 * @return Distanz des ganzen Weges vom Start zum Ende.
+	 */
+	private int getDistance(int[] nodes) {
+		if (nodes.length == 0) {
+			return JumpNodeGraph.getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+		}
+		int distance = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			distance += getStep(nodes, i);
+		}
+		return distance + graph.getDistanceFrom(nodes[nodes.length - 1], end);
+	}
+
+	/**
+	 * @return Die Positionen {i, j} eines JNs ab {@code from} und des letzten spaeteren Gegenstuecks
+	 *         oder null, wenn der Weg ab {@code from} erlaubt ist.
+	 */
+	private int[] findOpposites(int[] nodes, int from) {
+		for (int i = from; i < nodes.length; i++) {
+			for (int j = nodes.length - 1; j > i; j--) {
+				if (graph.isOpposite(nodes[i], nodes[j])) {
+					return new int[] { i, j };
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean contains(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Kuerzester erlaubter Weg ab dem Abzweig {@code root[rootLength-1]} (bzw. dem Start bei Laenge 0)
+	 * zum Ende. Parameter wie bei {@link #searchShortest}.
+	 *
+	 * @return Kuerzester Weg mit dem Wurzelweg als Praefix oder null.
+	 */
+	private Route search(int[] root, int rootLength, int rootDist, boolean[] blocked, int[] blockedNext,
+			int blockedCount) {
+		Route route = searchShortest(root, rootLength, rootDist, blocked, blockedNext, blockedCount);
+		if (route == null) {
+			return null;
+		}
+		int[] nodes = route.nodes;
+		int[] pair;
+		while ((pair = findOpposites(nodes, rootLength)) != null) {
+			if (pair[0] == rootLength) {
+				return searchAround(root, rootLength, rootDist, blocked, blockedNext, blockedCount,
+						nodes[rootLength]);
+			}
+			// Nach dem Gegenstueck steht man wieder am Eintrittspunkt von nodes[i], die Schleife
+			// dazwischen kann also wegfallen.
+			int[] shorter = new int[nodes.length - (pair[1] - pair[0] + 1)];
+			System.arraycopy(nodes, 0, shorter, 0, pair[0]);
+			System.arraycopy(nodes, pair[1] + 1, shorter, pair[0], nodes.length - pair[1] - 1);
+			nodes = shorter;
+		}
+		return nodes == route.nodes ? route : new Route(nodes, getDistance(nodes));
+	}
+
+	/**
+	 * Der kuerzeste Weg nutzt nach {@code first} eines seiner Gegenstuecke. Der kuerzeste erlaubte Weg
+	 * beginnt entweder mit {@code first} und meidet dessen Gegenstuecke, oder er beginnt nicht mit
+	 * {@code first}.
+	 */
+	private Route searchAround(int[] root, int rootLength, int rootDist, boolean[] blocked, int[] blockedNext,
+			int blockedCount, int first) {
+		int[] withFirst = Arrays.copyOf(root, rootLength + 1);
+		withFirst[rootLength] = first;
+		boolean[] withFirstBlocked = Arrays.copyOf(blocked, blocked.length);
+		block(withFirstBlocked, first);
+		Route with = search(withFirst, rootLength + 1, rootDist + getStep(withFirst, rootLength),
+				withFirstBlocked, new int[0], 0);
+
+		int[] withoutNext = Arrays.copyOf(blockedNext, blockedCount + 1);
+		withoutNext[blockedCount] = first;
+		Route without = search(root, rootLength, rootDist, blocked, withoutNext, blockedCount + 1);
+		if (with == null || (without != null && without.compareTo(with) < 0)) {
+			return without;
+		}
+		return with;
+	}
+
+	/**
+	 * Dijkstra-Suche ab dem Abzweig {@code root[rootLength-1]} (bzw. dem Start bei Laenge 0) zum Ende.
+	 * Gegenstuecke innerhalb des gefundenen Weges werden hier nicht beachtet.
+	 *
+	 * @param root Knoten des Weges bis zum Abzweig.
+	 * @param rootLength Anzahl der genutzten Knoten aus {@code root}.
+	 * @param rootDist Distanz vom Start bis zum Abzweig.
+	 * @param blocked Knoten, die nicht betreten werden duerfen (die Knoten aus {@code root} und ihre Gegenstuecke).
+	 * @param blockedNext Knoten, die nicht direkt nach dem Abzweig folgen duerfen, oder {@link #TARGET}.
+	 * @param blockedCount Anzahl der Eintraege in {@code blockedNext}.
+	 * @return Kuerzester Weg mit dem Wurzelweg als Praefix oder null.
+	 */
+	private Route searchShortest(int[] root, int rootLength, int rootDist, boolean[] blocked, int[] blockedNext,
+			int blockedCount) {
+		SearchWorkspace ws = SearchWorkspace.get(graph.size());
+		int best = Integer.MAX_VALUE;
+		int bestLast = -1;
+		boolean bestFound = false;
+		boolean targetAllowed = !contains(blockedNext, blockedCount, TARGET);
+		if (rootLength == 0) {
+			if (targetAllowed && start.getSystem() == end.getSystem()) {
+				best = rootDist + JumpNodeGraph.getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+				bestFound = true;
+			}
+			for (int node : graph.getNodesInSystem(start.getSystem())) {
+				if (!contains(blockedNext, blockedCount, node)) {
+					relax(ws, blocked, node, -1, rootDist + graph.getDistanceTo(start, node));
+				}
+			}
+		} else {
+			int spur = root[rootLength - 1];
+			if (targetAllowed && graph.getSystemOut(spur) == end.getSystem()) {
+				best = rootDist + graph.getDistanceFrom(spur, end);
+				bestFound = true;
+			}
+			for (int e = graph.getEdgeStart(spur); e < graph.getEdgeEnd(spur); e++) {
+				int node = graph.getEdgeTarget(e);
+				if (!contains(blockedNext, blockedCount, node)) {
+					relax(ws, blocked, node, -1, rootDist + graph.getEdgeWeight(e));
+				}
+			}
+		}
+
+		while (!ws.isEmpty()) {
+			long entry = ws.pop();
+			int d = (int) (entry >>> 32);
+			int u = (int) entry;
+			if (d >= best) {
+				break;
+			}
+			if (d > ws.getDistance(u)) {
+				continue;
+			}
+			if (graph.getSystemOut(u) == end.getSystem()) {
+				int total = d + graph.getDistanceFrom(u, end);
+				if (total < best) {
+					best = total;
+					bestLast = u;
+					bestFound = true;
+				}
+			}
+			for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+				relax(ws, blocked, graph.getEdgeTarget(e), u, d + graph.getEdgeWeight(e));
+			}
+		}
+
+		if (!bestFound || best > maxTestDist) {
+			return null;
+		}
+		int length = rootLength;
+		for (int node = bestLast; node >= 0; node = ws.getParent(node)) {
+			length++;
+		}
+		int[] nodes = Arrays.copyOf(root, length);
+		for (int node = bestLast, i = length - 1; node >= 0; node = ws.getParent(node), i--) {
+			nodes[i] = node;
+		}
+		return new Route(nodes, best);
+	}
+
+	private void relax(SearchWorkspace ws, boolean[] blocked, int node, int from, int distance) {
+		if (!avoid[node] && !blocked[node] && distance < ws.getDistance(node) && distance <= maxTestDist) {
+			ws.setDistance(node, distance, from);
+			ws.push(node, distance);
+		}
+	}
+
+	/**
+	 * Ein gefundener Weg als Folge von Knoten-Indizes.
+	 */
+	private static class Route implements Comparable<Route> {
+		private final int[] nodes;
+		private final int distance;
+
+		private Route(int[] nodes, int distance) {
+			this.nodes = nodes;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Route o) {
+			if (distance != o.distance) {
+				return Integer.compare(distance, o.distance);
+			}
+			return Integer.compare(nodes.length, o.nodes.length);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Route && Arrays.equals(nodes, ((Route) o).nodes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(nodes);
+		}
+	}
+}
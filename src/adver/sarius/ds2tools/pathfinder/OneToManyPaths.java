@@ -0,0 +1,111 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Kuerzeste Wege von einem Start zu vielen Zielen. Es wird eine einzige Dijkstra-Suche ueber den
+ * ganzen {@link JumpNodeGraph} gemacht, danach wird jedes Ziel nur noch aus den Distanzen der JNs
+ * beantwortet, die in sein System fuehren.
+ * Ein Objekt ist nur fuer eine Anfrage gedacht.
+ */
+public class OneToManyPaths {
+
+	private final JumpNodeGraph graph;
+	private final Location start;
+	private final int maxTestDist;
+
+	/** JNs die nie benutzt werden duerfen. **/
+	private final boolean[] avoid;
+
+	/**
+	 * @param graph Graph ueber alle JNs.
+	 * @param start Startpunkt.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen.
+	 * @param maxTestDist Wege die laenger sind werden nicht beachtet.
+	 */
+	public OneToManyPaths(JumpNodeGraph graph, Location start, Set<Integer> jnsToAvoid, int maxTestDist) {
+		this.graph = graph;
+		this.start = start;
+		this.maxTestDist = maxTestDist;
+		this.avoid = new boolean[graph.size()];
+		for (Integer id : jnsToAvoid) {
+			int node = graph.indexOf(id);
+			if (node >= 0) {
+				avoid[node] = true;
+			}
+		}
+	}
+
+	/**
+	 * Berechnet den kuerzesten Weg zu jedem Ziel.
+	 *
+	 * @param ends Die Ziele.
+	 * @return Pro Ziel in gleicher Reihenfolge der kuerzeste Weg oder null, wenn es keinen innerhalb
+	 *         von {@code maxTestDist} gibt.
+	 */
+	public List<PathDistanceTupel> find(List<Location> ends) {
+		SearchWorkspace ws = SearchWorkspace.get(graph.size());
+		for (int node : graph.getNodesInSystem(start.getSystem())) {
+			relax(ws, node, -1, graph.getDistanceTo(start, node));
+		}
+		while (!ws.isEmpty()) {
+			long entry = ws.pop();
+			int d = (int) (entry >>> 32);
+			int u = (int) entry;
+			if (d > ws.getDistance(u)) {
+				continue;
+			}
+			for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+				relax(ws, graph.getEdgeTarget(e), u, d + graph.getEdgeWeight(e));
+			}
+		}
+
+		List<PathDistanceTupel> result = new ArrayList<PathDistanceTupel>(ends.size());
+		for (Location end : ends) {
+			result.add(getPath(ws, end));
+		}
+		return result;
+	}
+
+	private PathDistanceTupel getPath(SearchWorkspace ws, Location end) {
+		long best = Long.MAX_VALUE;
+		int bestLast = -1;
+		if (start.getSystem() == end.getSystem()) {
+			best = JumpNodeGraph.getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+		}
+		for (int node : graph.getNodesArrivingIn(end.getSystem())) {
+			int d = ws.getDistance(node);
+			if (d == Integer.MAX_VALUE) {
+				continue;
+			}
+			long total = (long) d + graph.getDistanceFrom(node, end);
+			if (total < best) {
+				best = total;
+				bestLast = node;
+			}
+		}
+		if (best > maxTestDist) {
+			return null;
+		}
+		int length = 0;
+		for (int node = bestLast; node >= 0; node = ws.getParent(node)) {
+			length++;
+		}
+		int[] ids = new int[length];
+		for (int node = bestLast, i = length - 1; node >= 0; node = ws.getParent(node), i--) {
+			ids[i] = graph.getId(node);
+		}
+		return new PathDistanceTupel(ids, (int) best);
+	}
+
+	private void relax(SearchWorkspace ws, int node, int from, int distance) {
+		if (!avoid[node] && distance < ws.getDistance(node) && distance <= maxTestDist) {
+			ws.setDistance(node, distance, from);
+			ws.push(node, distance);
+		}
+	}
+}
@@ -1,9 +1,16 @@
 package adver.sarius.ds2tools.pathfinder;
 
+import java.util.AbstractList;
 import java.util.List;
 
+/**
+ * Ein Weg als Folge von JN-IDs mit seiner Distanz. Die IDs liegen in einem {@code int[]},
+ * {@link #getPath()} ist nur eine Sicht darauf.
+ */
 public class PathDistanceTupel implements Comparable<PathDistanceTupel>{
-	private List<Integer> path;
+	private static final int[] NO_JNS = new int[0];
+
+	private int[] path = NO_JNS;
 	private int distance;
 	
 	public PathDistanceTupel(){
@@ -11,17 +18,49 @@ public class PathDistanceTupel implements Comparable<PathDistanceTupel>{
 	}
 
 	public PathDistanceTupel(List<Integer> path, int distance) {
+		setPath(path);
+		this.distance = distance;
+	}
+
+	/**
+	 * @param path JN-IDs des Weges. Das Array wird uebernommen und darf danach nicht mehr veraendert werden.
+	 * @param distance Distanz des Weges.
+	 */
+	public PathDistanceTupel(int[] path, int distance) {
 		this.path = path;
 		this.distance = distance;
 	}
 
-	
+	/**
+	 * @return Nicht veraenderbare Sicht auf die JN-IDs des Weges.
+	 */
 	public List<Integer> getPath() {
-		return path;
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int index) {
+				return path[index];
+			}
+
+			@Override
+			public int size() {
+				return path.length;
+			}
+		};
 	}
 
 	public void setPath(List<Integer> path) {
-		this.path = path;
+		int[] ids = new int[path.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = path.get(i);
+		}
+		this.path = ids;
+	}
+
+	/**
+	 * @return Die JN-IDs des Weges. Das Array darf nicht veraendert werden.
+	 */
+	public int[] getJumpNodeIds() {
+		return path;
 	}
 
 	public int getDistance() {
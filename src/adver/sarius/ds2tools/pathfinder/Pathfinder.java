@@ -1,19 +1,19 @@
 package adver.sarius.ds2tools.pathfinder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import net.driftingsouls.ds2.server.Location;
-import net.driftingsouls.ds2.server.entities.JumpNode;
 
 import org.hibernate.Session;
 
-import adver.sarius.ds2tools.Data;
 import adver.sarius.ds2tools.HibernateUtils;
 
 public class Pathfinder {
@@ -27,10 +27,30 @@ public class Pathfinder {
 	/** Gibt an ob nur eine Route, naemlich die kuerzeste, gefunden werden soll. **/
 	private boolean onlyBest = false;
 	
-	/** Die bisher minimalste Distanz. Wird nur benutzt, wenn {@code onlyBest} true ist. **/
-	private int minDist;
+	/** Maximale Anzahl an Routen, wenn {@code onlyBest} false ist. **/
+	private int maxResults = Integer.MAX_VALUE;
 	
+	/** Graph ueber alle JNs, auf dem der kuerzeste Weg gesucht wird. **/
+	private JumpNodeGraph graph;
+	
+	/** Vorberechnete Distanzen zwischen allen JNs oder null. **/
+	private JumpNodeDistanceMatrix distanceMatrix;
+	
+	/** Gespeicherte Wege zwischen Systemen oder null. **/
+	private SystemRouteCache routeCache;
+	
+	/** Schranken zwischen Systemen fuer die A*-Suche oder null. **/
+	private SystemOverlay overlay;
+	
+	/**
+	 * Nutzt den Graphen des aktuellen Stands. Werden die JNs neu geladen, rechnet dieser Pathfinder
+	 * weiter mit dem alten Stand, fuer den neuen wird ein neuer Pathfinder gebraucht.
+	 */
 	public Pathfinder() {
+		this(JumpNodeGraph.getInstance());
+	}
+	public Pathfinder(JumpNodeGraph graph) {
+		this.graph = graph;
 		clear();
 	}
 	public Pathfinder(int maxTestDist, boolean onlyBest) {
@@ -39,6 +59,10 @@ public class Pathfinder {
 		this.onlyBest = onlyBest;
 	}
 
+	public JumpNodeGraph getGraph() {
+		return graph;
+	}
+
 	public void setOnlyBest(boolean onlyBest) {
 		this.onlyBest = onlyBest;
 	}
@@ -47,9 +71,45 @@ public class Pathfinder {
 		this.maxTestDist = maxTestDist;
 	}
 
+	public void setMaxResults(int maxResults) {
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * Setzt die Matrix, mit der der kuerzeste Weg ohne Suche bestimmt wird, wenn keine JNs
+	 * ausgeschlossen werden sollen. Muss zum Graphen dieses Pathfinders gehoeren.
+	 */
+	public void setDistanceMatrix(JumpNodeDistanceMatrix distanceMatrix) {
+		if (distanceMatrix != null && distanceMatrix.getGraph() != graph) {
+			throw new IllegalArgumentException("Distance matrix belongs to another graph");
+		}
+		this.distanceMatrix = distanceMatrix;
+	}
+
+	/**
+	 * Setzt den Cache, ueber den der kuerzeste Weg gesucht wird, wenn die Matrix nicht genutzt werden
+	 * kann. Muss zum Graphen dieses Pathfinders gehoeren.
+	 */
+	public void setRouteCache(SystemRouteCache routeCache) {
+		if (routeCache != null && routeCache.getGraph() != graph) {
+			throw new IllegalArgumentException("Route cache belongs to another graph");
+		}
+		this.routeCache = routeCache;
+	}
+
+	/**
+	 * Setzt das Overlay, mit dem der kuerzeste Weg gesucht wird, wenn weder Matrix noch Cache genutzt
+	 * werden koennen. Muss zum Graphen dieses Pathfinders gehoeren.
+	 */
+	public void setSystemOverlay(SystemOverlay overlay) {
+		if (overlay != null && overlay.getGraph() != graph) {
+			throw new IllegalArgumentException("System overlay belongs to another graph");
+		}
+		this.overlay = overlay;
+	}
+
 	private void clear() {
 		pathsList = new ArrayList<PathDistanceTupel>();
-		minDist = Integer.MAX_VALUE;
 	}
 	
 	public static void main(String[] args) {
@@ -59,67 +119,64 @@ public class Pathfinder {
 		Location end = new Location(75, 28, 95);
 //		Location end = new Location(41, 8, 35);
 		Set<Integer> jnsToAvoid = new HashSet<Integer>();
-		List<Integer> jnsUsed = new ArrayList<Integer>();
-		int distance = 0;
-		p.maxTestDist = 500;		
+		p.maxTestDist = 500;
+		p.maxResults = 8;
 		
-		p.fillPathList(start, end, jnsToAvoid, jnsUsed, distance);
-		Collections.sort(p.pathsList);
-		for(int i = 0; i< Math.min(p.pathsList.size(), 8); i++){
+		p.calculatePaths(start, end, jnsToAvoid);
+		for(int i = 0; i< p.pathsList.size(); i++){
 			System.out.println(p.toString(start, end, p.pathsList.get(i)));
 		}
 //		calculateAllJnDistance();
 	}
 	// Distanz: 789: 2:164/195 --> 2:44/44 --> 1:25/28 --> 1:39/31 --> 1:32/348 --> 1:98/296 --> 1:178/217 --> 1:192/267 --> 75:139/221 --> 75:256/218 --> 81:10/284 --> 81:70/20 --> 6:69/43 --> 6:196/157
 	
-	/*
+	/**
+	 * Sucht die JN-Paare aus unterschiedlichen Systemen, die am weitesten voneinander entfernt sind.
+	 * Nutzt die Distanz-Matrix aller JNs statt einer eigenen Suche pro Paar. Die Start-JNs werden
+	 * parallel abgearbeitet.
+	 */
 	public static void calculateAllJnDistance(){
-		Pathfinder p = new Pathfinder();
+		JumpNodeGraph graph = JumpNodeGraph.getInstance();
+		JumpNodeDistanceMatrix matrix = JumpNodeDistanceMatrix.calculate(graph);
+		Pathfinder p = new Pathfinder(graph);
 		
-		List<PathDistanceTupel> maxPath = new ArrayList<PathDistanceTupel>();
-		maxPath.add(new PathDistanceTupel(new ArrayList<Integer>(), -1));
-		List<String> maxPathString = new ArrayList<String>();
+		int[] rowMax = new int[graph.size()];
+		IntStream.range(0, graph.size()).parallel().forEach(from -> {
+			rowMax[from] = -1;
+			for (int to = 0; to < graph.size(); to++) {
+				PathDistanceTupel path = findJnPath(graph, matrix, from, to);
+				if (path != null) {
+					rowMax[from] = Math.max(rowMax[from], path.getDistance());
+				}
+			}
+		});
+		int maxDist = Arrays.stream(rowMax).max().orElse(-1);
+		System.out.println(maxDist);
 		
-//		List<String> visitedJNs = new ArrayList<String>();
-		for(List<JumpNode> nodeList : p.jns.values()){
-			for(JumpNode jump : nodeList){
-				
-				for(List<JumpNode> nodeListInner : p.jns.values()){
-					for(JumpNode jumpInner : nodeListInner){
-//						if(!visitedJNs.contains(jumpInner.getId() + "|" + p.getOppositeJN(jumpInner))){
-						if(jumpInner.getSystem() != jump.getSystem()){
-//							visitedJNs.add(p.getOppositeJN(jumpInner) + "|" + jumpInner.getId());
-							p.clear();
-							p.fillPathList(jump.getLocation(), jumpInner.getLocation(), new HashSet<Integer>(), new ArrayList<Integer>(), 0);
-							Collections.sort(p.pathsList);
-							try{
-							if(p.pathsList.get(0).getDistance() > maxPath.get(0).getDistance()){
-								maxPath.clear();
-								maxPath.add(p.pathsList.get(0));
-								maxPathString.clear();
-								maxPathString.add(p.toString(jump.getLocation(), jumpInner.getLocation(), p.pathsList.get(0)));
-								p.maxDist = maxPath.get(0).getDistance(); 		//
-								System.out.println("----");
-								System.out.println(p.maxDist);
-								System.out.println(maxPathString.get(0));
-							} else if(p.pathsList.get(0).getDistance() == maxPath.get(0).getDistance()){
-								maxPath.add(p.pathsList.get(0));
-								maxPathString.add(p.toString(jump.getLocation(), jumpInner.getLocation(), p.pathsList.get(0)));
-							}
-							} catch(Exception ex){
-//								System.out.println(p.toString(jump.getLocation()) + p.toString(jumpInner.getLocation()));
-							}
-						}
-					}
+		for (int from = 0; from < graph.size(); from++) {
+			if (rowMax[from] != maxDist) {
+				continue;
+			}
+			for (int to = 0; to < graph.size(); to++) {
+				PathDistanceTupel path = findJnPath(graph, matrix, from, to);
+				if (path != null && path.getDistance() == maxDist) {
+					System.out.println(p.toString(new Location(graph.getSystem(from), graph.getX(from), graph.getY(from)),
+							new Location(graph.getSystem(to), graph.getX(to), graph.getY(to)), path));
 				}
 			}
 		}
-		
-		for(String s : maxPathString){
-			System.out.println(s);
+	}
+	
+	/**
+	 * @return Kuerzester Weg zwischen den Positionen zweier JNs oder null, wenn sie im selben System liegen.
+	 */
+	private static PathDistanceTupel findJnPath(JumpNodeGraph graph, JumpNodeDistanceMatrix matrix, int from, int to) {
+		if (graph.getSystem(from) == graph.getSystem(to)) {
+			return null;
 		}
+		return matrix.findShortestPath(new Location(graph.getSystem(from), graph.getX(from), graph.getY(from)),
+				new Location(graph.getSystem(to), graph.getX(to), graph.getY(to)), Integer.MAX_VALUE);
 	}
-	*/
 	
 	public String toString(Location start, Location end, PathDistanceTupel path) {
 		StringBuilder builder = new StringBuilder();
@@ -128,13 +185,13 @@ public class Pathfinder {
 		builder.append(path.getDistance());
 		builder.append(": ");
 		builder.append(this.toString(start));
-		// TODO: Gucken ob Queries zu rechenintensiv sind
-		for (Integer id : path.getPath()) {
-			JumpNode jump = Data.getJN(id);
+		// Koordinaten aus dem eigenen Graphen, damit sie zum Stand passen, mit dem gesucht wurde.
+		for (int id : path.getJumpNodeIds()) {
+			int node = graph.indexOf(id);
 			builder.append(" --> ");
-			builder.append(this.toString(jump.getLocation()));
+			builder.append(this.toString(new Location(graph.getSystem(node), graph.getX(node), graph.getY(node))));
 			builder.append(" -JN-> ");
-			builder.append(this.toString(new Location(jump.getSystemOut(), jump.getXOut(), jump.getYOut())));
+			builder.append(this.toString(new Location(graph.getSystemOut(node), graph.getXOut(node), graph.getYOut(node))));
 		}
 		builder.append(" --> ");
 		builder.append(this.toString(end));
@@ -147,6 +204,7 @@ public class Pathfinder {
 	
 	/**
 	 * Berechnet die Pfade vom Start zum Ende, ohne die JNs aus dem uebergebenen Set zu verwenden.
+	 * Ist {@code onlyBest} false, werden die {@code maxResults} kuerzesten schleifenfreien Wege berechnet.
 	 * Letztes Ergebnis kann mit {@link #getPathResults()} abgerufen werden.
 	 * 
 	 * @param start Startpunkt.
@@ -154,68 +212,103 @@ public class Pathfinder {
 	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
 	 */
 	public void calculatePaths(Location start, Location end, Set<Integer> jnsToAvoid) {
-		clear();
+		pathsList = findPaths(start, end, jnsToAvoid);
+	}
+	
+	/**
+	 * Wie {@link #calculatePaths(Location, Location, Set)}, aber ohne Zustand im Pathfinder.
+	 * Kann von mehreren Threads gleichzeitig aufgerufen werden, solange die Einstellungen nicht
+	 * geaendert werden.
+	 * 
+	 * @param start Startpunkt.
+	 * @param end Endpunkt.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @return Die gefundenen Pfade aufsteigend nach Distanz sortiert.
+	 */
+	public List<PathDistanceTupel> findPaths(Location start, Location end, Set<Integer> jnsToAvoid) {
+		return findPaths(start, end, jnsToAvoid, onlyBest ? 1 : maxResults);
+	}
+	
+	/**
+	 * Wie {@link #findPaths(Location, Location, Set)}, aber mit der Anzahl der Routen als Parameter
+	 * statt {@code onlyBest} und {@code maxResults}.
+	 * 
+	 * @param start Startpunkt.
+	 * @param end Endpunkt.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @param k Maximale Anzahl an Routen.
+	 * @return Die gefundenen Pfade aufsteigend nach Distanz sortiert.
+	 */
+	public List<PathDistanceTupel> findPaths(Location start, Location end, Set<Integer> jnsToAvoid, int k) {
+		if (k == 1) {
+			List<PathDistanceTupel> result = new ArrayList<PathDistanceTupel>(1);
+			PathDistanceTupel best = findShortestPath(start, end, jnsToAvoid);
+			if (best != null) {
+				result.add(best);
+			}
+			return result;
+		}
 		if (jnsToAvoid == null) {
-			jnsToAvoid = new HashSet<Integer>();
+			jnsToAvoid = Collections.emptySet();
 		}
-		fillPathList(start, end, jnsToAvoid, new ArrayList<Integer>(), 0);
+		return new KShortestPaths(graph, start, end, jnsToAvoid, maxTestDist).find(k);
 	}
 	
 	/**
-	 * Berechnet rekursiv alle Wege vom {@code start} bis {@code end}.
+	 * Berechnet nur den kuerzesten Weg, unabhaengig von {@code onlyBest}. Ohne Zustand im Pathfinder.
 	 * 
 	 * @param start Startpunkt.
 	 * @param end Endpunkt.
-	 * @param jnsToAvoid Set mit JN-IDs die nicht beutzt werden sollen. Ggf. inklusive bereits genutzter JNs.
-	 * @param jnsUsed Liste der bereits genutzten JNs in entsprechender Reihenfolge.
-	 * @param distance Bisher zurueck gelegte Distanz.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @return Der kuerzeste Weg oder null, wenn es keinen innerhalb von {@code maxTestDist} gibt.
 	 */
-	private void fillPathList(Location start, Location end, Set<Integer> jnsToAvoid, List<Integer> jnsUsed, int distance) {
-		// Wenn Start und Ziel im selben System liegen.
-		if (end.getSystem() == start.getSystem()) {
-			distance += getDistance(start, end);
-			if (distance <= maxTestDist) {
-				if (onlyBest) {
-					if (distance < minDist) {
-						minDist = distance;
-						pathsList.clear();
-						pathsList.add(new PathDistanceTupel(new ArrayList<Integer>(jnsUsed), distance));
-					}
-				} else {
-					pathsList.add(new PathDistanceTupel(new ArrayList<Integer>(jnsUsed), distance));
-				}
+	public PathDistanceTupel findShortestPath(Location start, Location end, Set<Integer> jnsToAvoid) {
+		if (jnsToAvoid == null || jnsToAvoid.isEmpty()) {
+			if (distanceMatrix != null) {
+				return distanceMatrix.findShortestPath(start, end, maxTestDist);
 			}
-			distance -= getDistance(start, end);
+			jnsToAvoid = Collections.emptySet();
 		}
-
-		int tmpDistance;
-		Set<Integer> tmpAvoid;
-		List<Integer> tmpUsed;
-
-		// Jeden JN im Startsystem nutzen falls erlaubt.
-		List<JumpNode> sysJNs = Data.getJNs().get(start.getSystem());
-		for (JumpNode jn : sysJNs) {
-			if (jnsToAvoid.contains(jn.getId())) {
-				continue;
-			}
-			tmpAvoid = new HashSet<Integer>(jnsToAvoid);
-			tmpAvoid.add(jn.getId());
-			Data.getOppositeJNs(jn).stream().map(JumpNode::getId).forEach(tmpAvoid::add);
-
-			tmpUsed = new ArrayList<Integer>(jnsUsed);
-			tmpUsed.add(jn.getId());
-
-			tmpDistance = distance + getDistance(start, jn.getLocation());
-			if (tmpDistance > maxTestDist) {
-				continue;
-			} else {
-				if (onlyBest && distance > minDist) {
-					continue;
-				}
-				fillPathList(new Location(jn.getSystemOut(), jn.getXOut(), jn.getYOut()), end, tmpAvoid, tmpUsed,
-						tmpDistance);
-			}
+		if (routeCache != null) {
+			return routeCache.findShortestPath(start, end, jnsToAvoid, maxTestDist);
+		}
+		if (overlay != null) {
+			return overlay.findShortestPath(start, end, jnsToAvoid, maxTestDist);
 		}
+		List<PathDistanceTupel> result = new KShortestPaths(graph, start, end, jnsToAvoid, maxTestDist).find(1);
+		return result.isEmpty() ? null : result.get(0);
+	}
+	
+	/**
+	 * Berechnet die kuerzesten Wege von einem Start zu vielen Zielen mit einer einzigen Suche,
+	 * unabhaengig von {@code onlyBest}. Ohne Zustand im Pathfinder.
+	 * 
+	 * @param start Startpunkt.
+	 * @param ends Alle Ziele.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @return Pro Ziel in gleicher Reihenfolge der kuerzeste Weg oder null, wenn es keinen innerhalb
+	 *         von {@code maxTestDist} gibt.
+	 */
+	public List<PathDistanceTupel> findShortestPaths(Location start, List<Location> ends, Set<Integer> jnsToAvoid) {
+		if (jnsToAvoid == null) {
+			jnsToAvoid = Collections.emptySet();
+		}
+		return new OneToManyPaths(graph, start, jnsToAvoid, maxTestDist).find(ends);
+	}
+	
+	/**
+	 * Wie {@link #findShortestPaths(Location, List, Set)} fuer mehrere Starts. Die Starts werden
+	 * parallel abgearbeitet, mit einer Suche pro Start.
+	 * 
+	 * @param starts Alle Startpunkte.
+	 * @param ends Alle Ziele.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @return Pro Start eine Liste mit dem kuerzesten Weg zu jedem Ziel, jeweils in gleicher Reihenfolge.
+	 */
+	public List<List<PathDistanceTupel>> findShortestPaths(List<Location> starts, List<Location> ends,
+			Set<Integer> jnsToAvoid) {
+		return starts.parallelStream().map(start -> findShortestPaths(start, ends, jnsToAvoid))
+				.collect(Collectors.toList());
 	}
 	
 	/**
@@ -226,8 +319,7 @@ public class Pathfinder {
 		return this.pathsList;
 	}
 	
-	// TODO: Vllt noch auslagern
 	public int getDistance(Location l1, Location l2) {
-		return Math.max(Math.abs(l1.getX() - l2.getX()), Math.abs(l1.getY() - l2.getY()));
+		return JumpNodeGraph.getDistance(l1.getX(), l1.getY(), l2.getX(), l2.getY());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,328 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import adver.sarius.ds2tools.Data;
+import adver.sarius.ds2tools.Universe;
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * HTTP-Server, der Routen als JSON liefert, solange das Programm laeuft. Der Graph bleibt im
+ * Speicher, nach einem Neuladen der JNs wird automatisch der neue Stand genutzt.
+ * <p>
+ * {@code GET /route?from=605:1/1&to=75:28/95&avoid=12,13&k=3} liefert bis zu k Routen. Die letzten
+ * Ergebnisse werden in einem LRU-Cache gehalten. Gleiche Anfragen, die gleichzeitig eintreffen,
+ * werden nur einmal berechnet und warten auf das gleiche Ergebnis.
+ */
+public class RouteServer {
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final int maxDistance;
+	private final int maxResults;
+	/** Anzahl der Systempaare im {@link SystemRouteCache}, 0 ohne Cache. **/
+	private final int systemCacheSize;
+
+	/** Ergebnisse nach Anfrage, auch noch laufende. Zugriffe nur mit Lock auf die Map. **/
+	private final Map<RouteKey, CompletableFuture<List<PathDistanceTupel>>> cache;
+
+	/** Pathfinder fuer den Stand, mit dem zuletzt gesucht wurde. **/
+	private volatile Pathfinder pathfinder;
+	private volatile long pathfinderVersion = -1;
+
+	/**
+	 * @param port Port, auf dem der Server lauscht.
+	 * @param threads Anzahl der Threads fuer Anfragen.
+	 * @param cacheSize Maximale Anzahl gespeicherter Ergebnisse.
+	 * @param maxDistance Laengere Routen werden nicht gesucht.
+	 * @param maxResults Obergrenze fuer den Parameter k.
+	 * @param systemCacheSize Anzahl gespeicherter Systempaare fuer einzelne Routen, 0 ohne Cache.
+	 * @throws IOException Wenn der Port nicht geoeffnet werden kann.
+	 */
+	public RouteServer(int port, int threads, int cacheSize, int maxDistance, int maxResults, int systemCacheSize)
+			throws IOException {
+		this.maxDistance = maxDistance;
+		this.maxResults = maxResults;
+		this.systemCacheSize = systemCacheSize;
+		this.cache = new LinkedHashMap<RouteKey, CompletableFuture<List<PathDistanceTupel>>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<RouteKey, CompletableFuture<List<PathDistanceTupel>>> eldest) {
+				return size() > cacheSize;
+			}
+		};
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.server.setExecutor(executor);
+		this.server.createContext("/route", this::handleRoute);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Beendet den Server, laufende Anfragen bekommen noch eine Sekunde Zeit.
+	 */
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+	}
+
+	private void handleRoute(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "{\"error\":\"only GET is supported\"}");
+				return;
+			}
+			Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+			Location from = parseLocation(params.get("from"), "from");
+			Location to = parseLocation(params.get("to"), "to");
+			int[] avoid = parseAvoid(params.get("avoid"));
+			int k = params.containsKey("k") ? parseInt(params.get("k"), "k") : 1;
+			if (k < 1 || k > maxResults) {
+				throw new IllegalArgumentException("k must be between 1 and " + maxResults);
+			}
+
+			Pathfinder pf = getPathfinder();
+			RouteKey key = new RouteKey(pf.getGraph(), from, to, avoid, k);
+			List<PathDistanceTupel> routes = findPaths(pf, key);
+			send(exchange, 200, toJson(pf.getGraph(), routes));
+		} catch (IllegalArgumentException ex) {
+			send(exchange, 400, "{\"error\":" + quote(ex.getMessage()) + "}");
+		} catch (RuntimeException ex) {
+			System.out.println("Failed to find route: " + ex);
+			send(exchange, 500, "{\"error\":" + quote(ex.toString()) + "}");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * @return Pathfinder fuer den aktuellen Stand der JNs.
+	 */
+	private Pathfinder getPathfinder() {
+		Universe universe = Data.getUniverse();
+		if (universe.getVersion() != pathfinderVersion) {
+			synchronized (this) {
+				if (universe.getVersion() != pathfinderVersion) {
+					Pathfinder pf = new Pathfinder(universe.getGraph());
+					pf.setMaxTestDist(maxDistance);
+					if (systemCacheSize > 0) {
+						pf.setRouteCache(new SystemRouteCache(universe.getGraph(), systemCacheSize));
+					} else {
+						pf.setSystemOverlay(new SystemOverlay(universe.getGraph()));
+					}
+					pathfinder = pf;
+					pathfinderVersion = universe.getVersion();
+					synchronized (cache) {
+						cache.clear();
+					}
+				}
+			}
+		}
+		return pathfinder;
+	}
+
+	/**
+	 * Liefert das Ergebnis aus dem Cache, wartet auf eine gleiche laufende Anfrage oder berechnet es
+	 * selbst.
+	 */
+	private List<PathDistanceTupel> findPaths(Pathfinder pf, RouteKey key) {
+		CompletableFuture<List<PathDistanceTupel>> future;
+		boolean compute = false;
+		synchronized (cache) {
+			future = cache.get(key);
+			if (future == null) {
+				future = new CompletableFuture<List<PathDistanceTupel>>();
+				cache.put(key, future);
+				compute = true;
+			}
+		}
+		if (compute) {
+			try {
+				Set<Integer> jnsToAvoid = new HashSet<Integer>();
+				for (int id : key.avoid) {
+					jnsToAvoid.add(id);
+				}
+				future.complete(pf.findPaths(key.from, key.to, jnsToAvoid, key.k));
+			} catch (RuntimeException ex) {
+				future.completeExceptionally(ex);
+				synchronized (cache) {
+					cache.remove(key, future);
+				}
+			}
+		}
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query) throws IOException {
+		Map<String, String> params = new HashMap<String, String>();
+		if (query == null) {
+			return params;
+		}
+		for (String param : query.split("&")) {
+			int eq = param.indexOf('=');
+			if (eq > 0) {
+				params.put(URLDecoder.decode(param.substring(0, eq), "UTF-8"),
+						URLDecoder.decode(param.substring(eq + 1), "UTF-8"));
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * @param value Position im Format system:x/y.
+	 */
+	private static Location parseLocation(String value, String name) {
+		if (value == null) {
+			throw new IllegalArgumentException("missing parameter " + name);
+		}
+		int colon = value.indexOf(':');
+		int slash = value.indexOf('/', colon + 1);
+		if (colon < 0 || slash < 0) {
+			throw new IllegalArgumentException(name + " must look like system:x/y");
+		}
+		return new Location(parseInt(value.substring(0, colon), name), parseInt(value.substring(colon + 1, slash), name),
+				parseInt(value.substring(slash + 1), name));
+	}
+
+	/**
+	 * @param value Komma-getrennte JN-IDs oder null.
+	 * @return Sortierte IDs ohne Duplikate.
+	 */
+	private static int[] parseAvoid(String value) {
+		if (value == null || value.isEmpty()) {
+			return new int[0];
+		}
+		return Arrays.stream(value.split(",")).mapToInt(id -> parseInt(id, "avoid")).sorted().distinct().toArray();
+	}
+
+	private static int parseInt(String value, String name) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException(name + " is not a number: " + value);
+		}
+	}
+
+	private static String toJson(JumpNodeGraph graph, List<PathDistanceTupel> routes) {
+		StringBuilder json = new StringBuilder(64 + routes.size() * 256);
+		json.append("{\"routes\":[");
+		for (int r = 0; r < routes.size(); r++) {
+			PathDistanceTupel route = routes.get(r);
+			json.append(r > 0 ? "," : "").append("{\"distance\":").append(route.getDistance()).append(",\"jns\":[");
+			int[] ids = route.getJumpNodeIds();
+			for (int i = 0; i < ids.length; i++) {
+				int node = graph.indexOf(ids[i]);
+				json.append(i > 0 ? "," : "").append("{\"id\":").append(ids[i]);
+				json.append(",\"from\":\"").append(graph.getSystem(node)).append(':').append(graph.getX(node)).append('/')
+						.append(graph.getY(node));
+				json.append("\",\"to\":\"").append(graph.getSystemOut(node)).append(':').append(graph.getXOut(node))
+						.append('/').append(graph.getYOut(node)).append("\"}");
+			}
+			json.append("]}");
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * @return Text als JSON-String mit Anfuehrungszeichen.
+	 */
+	private static String quote(String text) {
+		StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		return json.append('"').toString();
+	}
+
+	/**
+	 * Schluessel fuer den Cache. Enthaelt den Graphen, damit Ergebnisse eines alten Stands nie fuer
+	 * einen neuen genutzt werden.
+	 */
+	private static class RouteKey {
+		private final JumpNodeGraph graph;
+		private final Location from;
+		private final Location to;
+		private final int[] avoid;
+		private final int k;
+
+		private RouteKey(JumpNodeGraph graph, Location from, Location to, int[] avoid, int k) {
+			this.graph = graph;
+			this.from = from;
+			this.to = to;
+			this.avoid = avoid;
+			this.k = k;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RouteKey)) {
+				return false;
+			}
+			RouteKey other = (RouteKey) obj;
+			return graph == other.graph && k == other.k && equals(from, other.from) && equals(to, other.to)
+					&& Arrays.equals(avoid, other.avoid);
+		}
+
+		private static boolean equals(Location a, Location b) {
+			return a.getSystem() == b.getSystem() && a.getX() == b.getX() && a.getY() == b.getY();
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(graph);
+			hash = 31 * hash + from.getSystem();
+			hash = 31 * hash + from.getX();
+			hash = 31 * hash + from.getY();
+			hash = 31 * hash + to.getSystem();
+			hash = 31 * hash + to.getX();
+			hash = 31 * hash + to.getY();
+			hash = 31 * hash + Arrays.hashCode(avoid);
+			return 31 * hash + k;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Wiederverwendbarer Speicher fuer Dijkstra-Suchen auf dem {@link JumpNodeGraph}: Distanzen,
+ * Vorgaenger und eine Queue aus primitiven longs (Distanz << 32 | Knoten). Damit legt eine Suche
+ * keine Objekte pro Knoten an. Statt die Arrays vor jeder Suche zu leeren, wird eine Generation
+ * hochgezaehlt; Eintraege aus aelteren Generationen gelten als nicht besucht.
+ * <p>
+ * Pro Thread gibt es ueber {@link #get(int)} einen Workspace. Er darf nur fuer eine Suche
+ * gleichzeitig genutzt werden.
+ */
+public class SearchWorkspace {
+
+	private static final ThreadLocal<SearchWorkspace> WORKSPACES = ThreadLocal.withInitial(SearchWorkspace::new);
+
+	private int[] dist = new int[0];
+	private int[] parent = new int[0];
+	private int[] generationOf = new int[0];
+	private int generation;
+
+	private long[] heap = new long[16];
+	private int heapSize;
+
+	/**
+	 * @param size Anzahl der Knoten im Graphen.
+	 * @return Den geleerten Workspace des aktuellen Threads.
+	 */
+	public static SearchWorkspace get(int size) {
+		SearchWorkspace workspace = WORKSPACES.get();
+		workspace.reset(size);
+		return workspace;
+	}
+
+	/**
+	 * Bereitet den Workspace fuer eine neue Suche vor. Alle Distanzen sind danach unendlich und die
+	 * Queue ist leer.
+	 */
+	public void reset(int size) {
+		if (dist.length < size) {
+			dist = new int[size];
+			parent = new int[size];
+			generationOf = new int[size];
+			generation = 0;
+		}
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(generationOf, 0);
+			generation = 1;
+		}
+		heapSize = 0;
+	}
+
+	/**
+	 * @return Bisher kuerzeste Distanz zum Knoten oder {@link Integer#MAX_VALUE}.
+	 */
+	public int getDistance(int node) {
+		return generationOf[node] == generation ? dist[node] : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return Vorgaenger des Knotens aus {@link #setDistance(int, int, int)}.
+	 */
+	public int getParent(int node) {
+		return parent[node];
+	}
+
+	public void setDistance(int node, int distance, int parentNode) {
+		generationOf[node] = generation;
+		dist[node] = distance;
+		parent[node] = parentNode;
+	}
+
+	public boolean isEmpty() {
+		return heapSize == 0;
+	}
+
+	/**
+	 * Fuegt den Knoten mit seiner Distanz in die Queue ein.
+	 */
+	public void push(int node, int distance) {
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, heapSize * 2);
+		}
+		long entry = ((long) distance << 32) | node;
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (heap[up] <= entry) {
+				break;
+			}
+			heap[i] = heap[up];
+			i = up;
+		}
+		heap[i] = entry;
+	}
+
+	/**
+	 * Entfernt den Eintrag mit der kleinsten Distanz.
+	 *
+	 * @return Distanz << 32 | Knoten.
+	 */
+	public long pop() {
+		long top = heap[0];
+		long last = heap[--heapSize];
+		int i = 0;
+		int half = heapSize >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (last <= heap[child]) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return top;
+	}
+}
@@ -0,0 +1,103 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.Arrays;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Kuerzeste Distanz von jedem Sektor eines Systems zu einem festen Ziel, direkt oder ueber die JNs
+ * des Systems. Die Werte liegen zeilenweise in einem {@code int[]}, eine Abfrage ist ein Array-Zugriff.
+ */
+public class SystemDistanceField {
+
+	private final int system;
+	private final int width;
+	private final int height;
+	private final Location target;
+	private final int[] distances;
+
+	/**
+	 * Berechnet das Feld. Fuer jeden JN im System wird einmal die Distanz bis zum Ziel bestimmt,
+	 * danach ist jeder Sektor das Minimum aus lokaler Distanz zum JN plus dieser Distanz.
+	 *
+	 * @param matrix Distanzen zwischen allen JNs.
+	 * @param system Das System, fuer dessen Sektoren die Distanzen berechnet werden.
+	 * @param width Breite des Systems.
+	 * @param height Hoehe des Systems.
+	 * @param target Ziel, darf in einem anderen System liegen.
+	 */
+	public SystemDistanceField(JumpNodeDistanceMatrix matrix, int system, int width, int height, Location target) {
+		this.system = system;
+		this.width = width;
+		this.height = height;
+		this.target = target;
+		this.distances = new int[width * height];
+		Arrays.fill(distances, JumpNodeDistanceMatrix.UNREACHABLE);
+
+		JumpNodeGraph graph = matrix.getGraph();
+		if (target.getSystem() == system) {
+			for (int y = 1; y <= height; y++) {
+				for (int x = 1; x <= width; x++) {
+					distances[index(x, y)] = JumpNodeGraph.getDistance(x, y, target.getX(), target.getY());
+				}
+			}
+		}
+
+		int[] arriving = graph.getNodesArrivingIn(target.getSystem());
+		for (int node : graph.getNodesInSystem(system)) {
+			int toTarget = JumpNodeDistanceMatrix.UNREACHABLE;
+			for (int to : arriving) {
+				int viaJN = matrix.getDistance(node, to);
+				if (viaJN != JumpNodeDistanceMatrix.UNREACHABLE) {
+					toTarget = Math.min(toTarget, viaJN + graph.getDistanceFrom(to, target));
+				}
+			}
+			if (toTarget == JumpNodeDistanceMatrix.UNREACHABLE) {
+				continue;
+			}
+			for (int y = 1; y <= height; y++) {
+				int row = (y - 1) * width;
+				for (int x = 1; x <= width; x++) {
+					int d = JumpNodeGraph.getDistance(x, y, graph.getX(node), graph.getY(node)) + toTarget;
+					if (d < distances[row + x - 1]) {
+						distances[row + x - 1] = d;
+					}
+				}
+			}
+		}
+	}
+
+	private int index(int x, int y) {
+		return (y - 1) * width + (x - 1);
+	}
+
+	/**
+	 * @return Distanz vom Sektor zum Ziel oder {@link JumpNodeDistanceMatrix#UNREACHABLE}.
+	 */
+	public int getDistance(int x, int y) {
+		return distances[index(x, y)];
+	}
+
+	/**
+	 * @return Alle Distanzen zeilenweise, Index ist (y-1)*Breite+(x-1). Das Array darf nicht veraendert werden.
+	 */
+	public int[] getDistances() {
+		return distances;
+	}
+
+	public int getSystem() {
+		return system;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public Location getTarget() {
+		return target;
+	}
+}
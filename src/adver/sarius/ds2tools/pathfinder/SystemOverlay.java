@@ -0,0 +1,265 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Graph ueber die Verbindungen zwischen Systemen, um Suchen auf dem {@link JumpNodeGraph} zu fuehren.
+ * Eine Verbindung fasst alle JNs von einem System in ein anderes zusammen. Fuer jedes System wird die
+ * kleinste Distanz zwischen jeder eingehenden und jeder ausgehenden Verbindung gespeichert. Daraus wird
+ * vorab fuer jede Verbindung und jedes Zielsystem berechnet, was der Weg bis ins Zielsystem mindestens
+ * kostet.
+ * <p>
+ * Die Suche ist ein A* auf den JNs mit dieser unteren Schranke. Gibt es zwischen zwei Systemen nur
+ * einen JN, ist die Schranke exakt, die Suche folgt dann fast nur noch den Systemen auf dem Weg und der
+ * Weg liegt am Ende direkt als JN-Folge vor. Die Schranke ist konsistent, der gefundene Weg ist also
+ * der kuerzeste. Kann von mehreren Threads gleichzeitig genutzt werden.
+ */
+public class SystemOverlay {
+
+	private static final int[] NO_IDS = new int[0];
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final JumpNodeGraph graph;
+
+	/** Anzahl der Systeme. **/
+	private final int s;
+
+	/** Anzahl der Verbindungen. **/
+	private final int l;
+
+	/** Index jedes Systems im Overlay. **/
+	private final Map<Integer, Integer> systemIndex;
+
+	/** Verbindung pro JN. **/
+	private final int[] linkOf;
+
+	/** Index des Zielsystems pro Verbindung. **/
+	private final int[] linkTarget;
+
+	/**
+	 * Zeile pro Zielsystem: Mindestdistanz vom Austrittspunkt eines JNs der Verbindung bis ins
+	 * Zielsystem, 0 fuer Verbindungen ins Zielsystem.
+	 */
+	private final int[] lowerBound;
+
+	/**
+	 * Berechnet das Overlay. Pro Zielsystem wird eine Dijkstra-Suche rueckwaerts auf den Verbindungen
+	 * gemacht, die Suchen laufen parallel.
+	 *
+	 * @param graph Graph ueber alle JNs.
+	 */
+	public SystemOverlay(JumpNodeGraph graph) {
+		this.graph = graph;
+		int n = graph.size();
+		int[] systems = IntStream.range(0, n).flatMap(i -> IntStream.of(graph.getSystem(i), graph.getSystemOut(i)))
+				.distinct().sorted().toArray();
+		this.s = systems.length;
+		this.systemIndex = new HashMap<Integer, Integer>(s * 2);
+		for (int i = 0; i < s; i++) {
+			systemIndex.put(systems[i], i);
+		}
+
+		linkOf = new int[n];
+		Map<Long, Integer> links = new HashMap<Long, Integer>();
+		for (int u = 0; u < n; u++) {
+			long key = ((long) graph.getSystem(u) << 32) | (graph.getSystemOut(u) & 0xffffffffL);
+			Integer link = links.get(key);
+			if (link == null) {
+				link = links.size();
+				links.put(key, link);
+			}
+			linkOf[u] = link;
+		}
+		this.l = links.size();
+		linkTarget = new int[l];
+		for (int u = 0; u < n; u++) {
+			linkTarget[linkOf[u]] = systemIndex.get(graph.getSystemOut(u));
+		}
+
+		// Kleinste Distanz zwischen zwei aufeinanderfolgenden Verbindungen, gespeichert rueckwaerts im
+		// CSR-Format: Vorgaenger von Verbindung m liegen in [predStart[m], predStart[m+1]).
+		Map<Long, Integer> weights = new HashMap<Long, Integer>();
+		for (int u = 0; u < n; u++) {
+			for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+				long key = ((long) linkOf[graph.getEdgeTarget(e)] << 32) | linkOf[u];
+				weights.merge(key, graph.getEdgeWeight(e), Math::min);
+			}
+		}
+		int[] predStart = new int[l + 1];
+		for (long key : weights.keySet()) {
+			predStart[(int) (key >>> 32) + 1]++;
+		}
+		for (int i = 0; i < l; i++) {
+			predStart[i + 1] += predStart[i];
+		}
+		int[] pred = new int[weights.size()];
+		int[] predWeight = new int[weights.size()];
+		int[] fill = Arrays.copyOf(predStart, l);
+		for (Map.Entry<Long, Integer> entry : weights.entrySet()) {
+			int pos = fill[(int) (entry.getKey() >>> 32)]++;
+			pred[pos] = (int) (long) entry.getKey();
+			predWeight[pos] = entry.getValue();
+		}
+
+		lowerBound = new int[s * l];
+		IntStream.range(0, s).parallel().forEach(end -> calculateRow(end, predStart, pred, predWeight));
+	}
+
+	/**
+	 * Dijkstra rueckwaerts von allen Verbindungen ins Zielsystem.
+	 */
+	private void calculateRow(int end, int[] predStart, int[] pred, int[] predWeight) {
+		int row = end * l;
+		Arrays.fill(lowerBound, row, row + l, UNREACHABLE);
+		SearchWorkspace queue = SearchWorkspace.get(l);
+		for (int link = 0; link < l; link++) {
+			if (linkTarget[link] == end) {
+				lowerBound[row + link] = 0;
+				queue.push(link, 0);
+			}
+		}
+		while (!queue.isEmpty()) {
+			long entry = queue.pop();
+			int d = (int) (entry >>> 32);
+			int m = (int) entry;
+			if (d > lowerBound[row + m]) {
+				continue;
+			}
+			for (int p = predStart[m]; p < predStart[m + 1]; p++) {
+				int prev = pred[p];
+				long nd = (long) d + predWeight[p];
+				if (nd < lowerBound[row + prev]) {
+					lowerBound[row + prev] = (int) nd;
+					queue.push(prev, (int) nd);
+				}
+			}
+		}
+	}
+
+	public JumpNodeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return Anzahl der Systeme im Overlay.
+	 */
+	public int getSystemCount() {
+		return s;
+	}
+
+	/**
+	 * @return Untere Schranke fuer die Distanz vom Austrittspunkt des JNs bis zu einem Punkt im
+	 *         Zielsystem oder {@link Integer#MAX_VALUE}, wenn das Zielsystem nicht erreichbar ist.
+	 */
+	private int getLowerBound(int node, int endRow) {
+		return lowerBound[endRow + linkOf[node]];
+	}
+
+	/**
+	 * A* vom Start zum Ende, gefuehrt von den vorab berechneten Schranken zwischen den Systemen.
+	 *
+	 * @param start Startpunkt.
+	 * @param end Endpunkt.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @param maxTestDist Laengere Wege werden nicht beachtet.
+	 * @return Der kuerzeste Weg oder null, wenn es keinen innerhalb von {@code maxTestDist} gibt.
+	 */
+	public PathDistanceTupel findShortestPath(Location start, Location end, Set<Integer> jnsToAvoid, int maxTestDist) {
+		long best = Long.MAX_VALUE;
+		int bestLast = -1;
+		if (start.getSystem() == end.getSystem()) {
+			best = JumpNodeGraph.getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+		}
+		Integer endSystemIndex = systemIndex.get(end.getSystem());
+		if (endSystemIndex != null) {
+			int endIndex = endSystemIndex;
+			boolean[] avoid = new boolean[graph.size()];
+			if (jnsToAvoid != null) {
+				for (Integer id : jnsToAvoid) {
+					int node = graph.indexOf(id);
+					if (node >= 0) {
+						avoid[node] = true;
+					}
+				}
+			}
+			int endRow = endIndex * l;
+
+			// In der Queue steht die geschaetzte Gesamtdistanz, im Workspace die Distanz bis zum JN.
+			SearchWorkspace ws = SearchWorkspace.get(graph.size());
+			for (int node : graph.getNodesInSystem(start.getSystem())) {
+				if (!avoid[node]) {
+					push(ws, node, -1, graph.getDistanceTo(start, node), endRow, maxTestDist, best);
+				}
+			}
+			while (!ws.isEmpty()) {
+				long entry = ws.pop();
+				int f = (int) (entry >>> 32);
+				int u = (int) entry;
+				if (f >= best) {
+					break;
+				}
+				int g = ws.getDistance(u);
+				if (f > (long) g + getLowerBound(u, endRow)) {
+					continue;
+				}
+				if (linkTarget[linkOf[u]] == endIndex) {
+					long d = (long) g + graph.getDistanceFrom(u, end);
+					if (d < best) {
+						best = d;
+						bestLast = u;
+					}
+				}
+				for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+					int v = graph.getEdgeTarget(e);
+					if (!avoid[v]) {
+						push(ws, v, u, (long) g + graph.getEdgeWeight(e), endRow, maxTestDist, best);
+					}
+				}
+			}
+			if (bestLast >= 0 && best <= maxTestDist) {
+				return new PathDistanceTupel(getPath(ws, bestLast), (int) best);
+			}
+		}
+		if (best == Long.MAX_VALUE || best > maxTestDist) {
+			return null;
+		}
+		return new PathDistanceTupel(NO_IDS, (int) best);
+	}
+
+	/**
+	 * Setzt die Distanz des JNs und legt ihn in die Queue, wenn er den Weg noch verkuerzen kann.
+	 */
+	private void push(SearchWorkspace ws, int node, int parent, long g, int endRow, int maxTestDist,
+			long best) {
+		if (g >= ws.getDistance(node)) {
+			return;
+		}
+		int h = getLowerBound(node, endRow);
+		if (h == UNREACHABLE || g + h > maxTestDist || g + h >= best) {
+			return;
+		}
+		ws.setDistance(node, (int) g, parent);
+		ws.push(node, (int) (g + h));
+	}
+
+	/**
+	 * @return JN-IDs vom ersten JN im Startsystem bis einschliesslich {@code last}.
+	 */
+	private int[] getPath(SearchWorkspace ws, int last) {
+		int length = 0;
+		for (int node = last; node >= 0; node = ws.getParent(node)) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int node = last, i = length - 1; node >= 0; node = ws.getParent(node), i--) {
+			path[i] = graph.getId(node);
+		}
+		return path;
+	}
+}
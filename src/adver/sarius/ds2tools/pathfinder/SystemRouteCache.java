@@ -0,0 +1,253 @@
+package adver.sarius.ds2tools.pathfinder;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.driftingsouls.ds2.server.Location;
+
+/**
+ * Cache fuer kuerzeste Wege zwischen zwei Systemen. Pro Startsystem, Zielsystem und Set
+ * ausgeschlossener JNs werden einmal die Distanzen und JN-Folgen von jedem JN im Startsystem zu
+ * jedem JN ins Zielsystem berechnet. Eine Anfrage mit genauen Koordinaten rechnet danach nur noch
+ * die Strecken im Start- und Zielsystem neu, wie {@link JumpNodeDistanceMatrix#findShortestPath}.
+ * <p>
+ * Der Cache gehoert zu einem Graphen. Werden die JNs neu geladen, wird fuer den neuen Graphen ein
+ * neuer Cache gebraucht. Die Anzahl der Systempaare ist begrenzt, die am laengsten nicht genutzten
+ * werden zuerst entfernt. Kann von mehreren Threads gleichzeitig genutzt werden.
+ */
+public class SystemRouteCache {
+
+	private static final int[] NO_IDS = new int[0];
+
+	private final JumpNodeGraph graph;
+
+	/** Systempaare in Reihenfolge der Nutzung. Zugriffe nur mit Lock auf die Map. **/
+	private final Map<Key, SystemRoutes> routes;
+
+	/**
+	 * @param graph Graph ueber alle JNs.
+	 * @param maxEntries Maximale Anzahl gespeicherter Systempaare.
+	 */
+	public SystemRouteCache(JumpNodeGraph graph, int maxEntries) {
+		this.graph = graph;
+		this.routes = new LinkedHashMap<Key, SystemRoutes>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, SystemRoutes> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	public JumpNodeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return Anzahl der gespeicherten Systempaare.
+	 */
+	public int size() {
+		synchronized (routes) {
+			return routes.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (routes) {
+			routes.clear();
+		}
+	}
+
+	/**
+	 * Kuerzester Weg ueber die gespeicherten Distanzen des Systempaars. Fehlt das Paar, wird es
+	 * vorher berechnet.
+	 *
+	 * @param start Startpunkt.
+	 * @param end Endpunkt.
+	 * @param jnsToAvoid Set der JN-IDs die nicht genutzt werden sollen oder null.
+	 * @param maxTestDist Laengere Wege werden nicht beachtet.
+	 * @return Der kuerzeste Weg oder null, wenn es keinen innerhalb von {@code maxTestDist} gibt.
+	 */
+	public PathDistanceTupel findShortestPath(Location start, Location end, Set<Integer> jnsToAvoid, int maxTestDist) {
+		SystemRoutes pair = getRoutes(start.getSystem(), end.getSystem(), jnsToAvoid);
+
+		long best = Long.MAX_VALUE;
+		int bestFrom = -1;
+		int bestTo = -1;
+		if (start.getSystem() == end.getSystem()) {
+			best = JumpNodeGraph.getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+		}
+		int[] toEnd = new int[pair.to.length];
+		for (int t = 0; t < pair.to.length; t++) {
+			toEnd[t] = graph.getDistanceFrom(pair.to[t], end);
+		}
+		for (int f = 0; f < pair.from.length; f++) {
+			int toFrom = graph.getDistanceTo(start, pair.from[f]);
+			if (toFrom >= best) {
+				continue;
+			}
+			int row = f * pair.to.length;
+			for (int t = 0; t < pair.to.length; t++) {
+				if (pair.dist[row + t] == Integer.MAX_VALUE) {
+					continue;
+				}
+				long d = (long) toFrom + pair.dist[row + t] + toEnd[t];
+				if (d < best) {
+					best = d;
+					bestFrom = f;
+					bestTo = t;
+				}
+			}
+		}
+		if (best == Long.MAX_VALUE || best > maxTestDist) {
+			return null;
+		}
+		if (bestFrom < 0) {
+			return new PathDistanceTupel(NO_IDS, (int) best);
+		}
+		return new PathDistanceTupel(pair.paths[bestFrom * pair.to.length + bestTo], (int) best);
+	}
+
+	/**
+	 * @return Die Wege des Systempaars aus dem Cache oder neu berechnet.
+	 */
+	private SystemRoutes getRoutes(int startSystem, int endSystem, Set<Integer> jnsToAvoid) {
+		Key key = new Key(startSystem, endSystem, toSortedNodes(jnsToAvoid));
+		SystemRoutes pair;
+		synchronized (routes) {
+			pair = routes.get(key);
+		}
+		if (pair != null) {
+			return pair;
+		}
+		// Ausserhalb des Locks, gleichzeitige Anfragen fuer dasselbe Paar rechnen es doppelt.
+		pair = calculate(startSystem, endSystem, key.avoid);
+		synchronized (routes) {
+			SystemRoutes other = routes.putIfAbsent(key, pair);
+			return other != null ? other : pair;
+		}
+	}
+
+	/**
+	 * @return Indizes der auszuschliessenden JNs, sortiert und ohne JNs, die nicht im Graphen sind.
+	 */
+	private int[] toSortedNodes(Set<Integer> jnsToAvoid) {
+		if (jnsToAvoid == null || jnsToAvoid.isEmpty()) {
+			return NO_IDS;
+		}
+		return jnsToAvoid.stream().mapToInt(graph::indexOf).filter(node -> node >= 0).sorted().distinct().toArray();
+	}
+
+	/**
+	 * Eine Dijkstra-Suche pro JN im Startsystem, die endet, sobald alle JNs ins Zielsystem feststehen.
+	 */
+	private SystemRoutes calculate(int startSystem, int endSystem, int[] avoidNodes) {
+		boolean[] avoid = new boolean[graph.size()];
+		for (int node : avoidNodes) {
+			avoid[node] = true;
+		}
+		int[] from = Arrays.stream(graph.getNodesInSystem(startSystem)).filter(node -> !avoid[node]).toArray();
+		int[] to = Arrays.stream(graph.getNodesArrivingIn(endSystem)).filter(node -> !avoid[node]).toArray();
+		int[] dist = new int[from.length * to.length];
+		int[][] paths = new int[dist.length][];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+
+		for (int f = 0; f < from.length; f++) {
+			SearchWorkspace ws = SearchWorkspace.get(graph.size());
+			ws.setDistance(from[f], 0, -1);
+			ws.push(from[f], 0);
+			int open = to.length;
+			while (!ws.isEmpty() && open > 0) {
+				long entry = ws.pop();
+				int d = (int) (entry >>> 32);
+				int u = (int) entry;
+				if (d > ws.getDistance(u)) {
+					continue;
+				}
+				if (graph.getSystemOut(u) == endSystem) {
+					open--;
+				}
+				for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+					int v = graph.getEdgeTarget(e);
+					int nd = d + graph.getEdgeWeight(e);
+					if (!avoid[v] && nd < ws.getDistance(v)) {
+						ws.setDistance(v, nd, u);
+						ws.push(v, nd);
+					}
+				}
+			}
+			for (int t = 0; t < to.length; t++) {
+				int d = ws.getDistance(to[t]);
+				if (d != Integer.MAX_VALUE) {
+					dist[f * to.length + t] = d;
+					paths[f * to.length + t] = getPath(ws, to[t]);
+				}
+			}
+		}
+		return new SystemRoutes(from, to, dist, paths);
+	}
+
+	/**
+	 * @return JN-IDs vom Start der Suche bis einschliesslich {@code last}.
+	 */
+	private int[] getPath(SearchWorkspace ws, int last) {
+		int length = 0;
+		for (int node = last; node >= 0; node = ws.getParent(node)) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int node = last, i = length - 1; node >= 0; node = ws.getParent(node), i--) {
+			path[i] = graph.getId(node);
+		}
+		return path;
+	}
+
+	/**
+	 * Distanzen und Wege aller JN-Paare eines Systempaars. Zeile pro JN im Startsystem, Spalte pro JN
+	 * ins Zielsystem.
+	 */
+	private static class SystemRoutes {
+		private final int[] from;
+		private final int[] to;
+		/** Distanz vom Eintrittspunkt von from bis zum Eintrittspunkt von to oder MAX_VALUE. **/
+		private final int[] dist;
+		private final int[][] paths;
+
+		private SystemRoutes(int[] from, int[] to, int[] dist, int[][] paths) {
+			this.from = from;
+			this.to = to;
+			this.dist = dist;
+			this.paths = paths;
+		}
+	}
+
+	private static class Key {
+		private final int startSystem;
+		private final int endSystem;
+		private final int[] avoid;
+
+		private Key(int startSystem, int endSystem, int[] avoid) {
+			this.startSystem = startSystem;
+			this.endSystem = endSystem;
+			this.avoid = avoid;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return startSystem == other.startSystem && endSystem == other.endSystem
+					&& Arrays.equals(avoid, other.avoid);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * startSystem + endSystem) * 31 + Arrays.hashCode(avoid);
+		}
+	}
+}